@@ -0,0 +1,93 @@
+package frc.robot.util;
+
+import frc.robot.util.ShotSolver.ShotModel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Measures the cost of solving a moving shot against a single grid lookup. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ShotSolverBenchmark {
+  private static final int stateCount = 1024;
+  private static final double targetX = 4.5;
+  private static final double targetY = 4.0;
+
+  private final double[] robotX = new double[stateCount];
+  private final double[] robotY = new double[stateCount];
+  private final double[] velocityX = new double[stateCount];
+  private final double[] velocityY = new double[stateCount];
+  private ShotGrid grid;
+  private ShotSolver solver;
+  private int index = 0;
+
+  @Setup
+  public void setup() {
+    // Synthetic grid over 1.5 to 6 meters and -3 to 3 meters per second
+    int distanceCount = 16;
+    int velocityCount = 9;
+    double[] angleOffsets = new double[distanceCount * velocityCount];
+    double[] speeds = new double[angleOffsets.length];
+    double[] timesOfFlight = new double[angleOffsets.length];
+    for (int i = 0; i < distanceCount; i++) {
+      for (int j = 0; j < velocityCount; j++) {
+        double distance = 1.5 + i * 0.3;
+        double velocity = -3.0 + j * 0.75;
+        angleOffsets[i * velocityCount + j] = 0.01 * velocity;
+        speeds[i * velocityCount + j] = 250.0 + 60.0 * distance + 10.0 * velocity;
+        timesOfFlight[i * velocityCount + j] = 0.05 + 0.08 * distance;
+      }
+    }
+    grid =
+        new ShotGrid(
+            1.5,
+            0.3,
+            distanceCount,
+            -3.0,
+            0.75,
+            velocityCount,
+            angleOffsets,
+            speeds,
+            timesOfFlight);
+    solver = new ShotSolver(ShotModel.stationary(grid), 8, 0.01, 1.0);
+
+    // Random robot states around the target
+    Random random = new Random(0);
+    for (int i = 0; i < stateCount; i++) {
+      double distance = 1.5 + random.nextDouble() * 4.5;
+      double bearing = random.nextDouble() * 2.0 * Math.PI;
+      double speed = random.nextDouble() * 4.0;
+      double direction = random.nextDouble() * 2.0 * Math.PI;
+      robotX[i] = targetX - distance * Math.cos(bearing);
+      robotY[i] = targetY - distance * Math.sin(bearing);
+      velocityX[i] = speed * Math.cos(direction);
+      velocityY[i] = speed * Math.sin(direction);
+    }
+  }
+
+  @Benchmark
+  public void solve(Blackhole blackhole) {
+    int i = index++ & (stateCount - 1);
+    blackhole.consume(
+        solver.solve(robotX[i], robotY[i], velocityX[i], velocityY[i], targetX, targetY));
+    blackhole.consume(solver.getHeading());
+    blackhole.consume(solver.getSpeed());
+  }
+
+  @Benchmark
+  public void gridLookup(Blackhole blackhole) {
+    int i = index++ & (stateCount - 1);
+    double distance = Math.hypot(targetX - robotX[i], targetY - robotY[i]);
+    blackhole.consume(grid.getAngleOffset(distance, velocityX[i]));
+    blackhole.consume(grid.getSpeed(distance, velocityX[i]));
+    blackhole.consume(grid.getTimeOfFlight(distance, velocityX[i]));
+  }
+}
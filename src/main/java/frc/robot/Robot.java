@@ -15,6 +15,9 @@ package frc.robot;
 
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.subsystems.vision.LimelightOrientationPublisher;
+import frc.robot.subsystems.vision.LimelightOrientationPublisher.FlushPoint;
+import frc.robot.util.LoopProfiler;
 import org.littletonrobotics.junction.LogFileUtil;
 import org.littletonrobotics.junction.LoggedRobot;
 import org.littletonrobotics.junction.Logger;
@@ -83,6 +86,9 @@ public class Robot extends LoggedRobot {
     // Instantiate our RobotContainer. This will perform all our button bindings,
     // and put our autonomous chooser on the dashboard.
     robotContainer = new RobotContainer();
+
+    // Add loop profiler markers after all subsystems and bindings
+    LoopProfiler.install();
   }
 
   /** This function is called periodically during all modes. */
@@ -97,7 +103,13 @@ public class Robot extends LoggedRobot {
     // finished or interrupted commands, and running subsystem periodic() methods.
     // This must be called from the robot's periodic block in order for anything in
     // the Command-based framework to work.
+    LoopProfiler.beginCycle();
     CommandScheduler.getInstance().run();
+    LoopProfiler.endScheduler();
+
+    // Publish Limelight orientations if configured to flush at the end of the cycle
+    LimelightOrientationPublisher.getInstance().periodic(FlushPoint.END_OF_CYCLE);
+    LoopProfiler.endCycle();
 
     // Return to non-RT thread priority (do not modify the first argument)
     // Threads.setCurrentThreadPriority(false, 10);
@@ -13,20 +13,35 @@
 
 package frc.robot;
 
+import static edu.wpi.first.units.Units.RadiansPerSecond;
 import static frc.robot.Constants.*;
+import static frc.robot.subsystems.shooter.ShooterConstants.shotLogDirectory;
+import static frc.robot.subsystems.shooter.ShooterConstants.shotLogMaxFileBytes;
+import static frc.robot.subsystems.shooter.ShooterConstants.shotLogQueueCapacity;
+import static frc.robot.subsystems.shooter.ShooterConstants.shotLogSyncBatchSize;
+import static frc.robot.subsystems.shooter.ShooterConstants.shotLogSyncIntervalSeconds;
+import static frc.robot.subsystems.shooter.ShooterConstants.shotSolverMaxIterations;
+import static frc.robot.subsystems.shooter.ShooterConstants.shotSolverToleranceMeters;
+import static frc.robot.subsystems.shooter.ShooterConstants.shotSolverVelocityFactor;
+import static frc.robot.subsystems.shooter.ShooterConstants.usePreSpin;
+import static frc.robot.subsystems.shooter.ShooterConstants.useShotSolver;
 import static frc.robot.subsystems.vision.VisionConstants.*;
 
 import com.pathplanner.lib.auto.AutoBuilder;
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
 import edu.wpi.first.wpilibj.GenericHID;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
+import edu.wpi.first.wpilibj2.command.button.RobotModeTriggers;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine.Direction;
@@ -42,18 +57,36 @@ import frc.robot.subsystems.shooter.Shooter;
 import frc.robot.subsystems.shooter.ShooterIO;
 import frc.robot.subsystems.shooter.ShooterIOSim;
 import frc.robot.subsystems.shooter.ShooterIOSpark;
+import frc.robot.subsystems.vision.StartupLocalizer;
 import frc.robot.subsystems.vision.Vision;
+import frc.robot.subsystems.vision.VisionCameraRegistry;
 import frc.robot.subsystems.vision.VisionIO;
+import frc.robot.subsystems.vision.VisionIOGeometricSim;
+import frc.robot.subsystems.vision.VisionIOLimelight;
 import frc.robot.subsystems.vision.VisionIOPhotonVision;
 import frc.robot.subsystems.vision.VisionIOPhotonVisionSim;
 import frc.robot.util.AllianceFlipUtil;
+import frc.robot.util.NoteTrajectorySim;
+import frc.robot.util.PreSpinPolicy;
 import frc.robot.util.ShooterSettings;
-import java.io.FileWriter;
-import java.io.IOException;
+import frc.robot.util.ShotGrid;
+import frc.robot.util.ShotMapLoader;
+import frc.robot.util.ShotReadiness;
+import frc.robot.util.ShotRecorder;
+import frc.robot.util.ShotRecorder.Outcome;
+import frc.robot.util.ShotRecorder.Shot;
+import frc.robot.util.ShotSolver;
+import frc.robot.util.ShotSolver.ShotModel;
+import frc.robot.util.ShotTable;
+import java.io.File;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.function.Supplier;
 import org.littletonrobotics.junction.AutoLogOutput;
+import org.littletonrobotics.junction.Logger;
 import org.littletonrobotics.junction.networktables.LoggedDashboardChooser;
+import org.littletonrobotics.junction.networktables.LoggedNetworkBoolean;
+import org.littletonrobotics.junction.networktables.LoggedNetworkString;
 
 /**
  * This class is where the bulk of the robot should be declared. Since Command-based is a
@@ -65,6 +98,7 @@ public class RobotContainer {
   // Subsystems
   private final Drive drive;
   private final Vision vision;
+  private final StartupLocalizer startupLocalizer;
   private final Shooter shooter;
 
   // Controller
@@ -72,6 +106,12 @@ public class RobotContainer {
 
   // Dashboard inputs
   private final LoggedDashboardChooser<Command> autoChooser;
+  private final LoggedNetworkString shotMapPath =
+      new LoggedNetworkString("Tuning/ShotMap/Path", "");
+  private final LoggedNetworkBoolean reloadShotMap =
+      new LoggedNetworkBoolean("Tuning/ShotMap/Reload", false);
+  private final LoggedNetworkBoolean reloadShotMapFromShots =
+      new LoggedNetworkBoolean("Tuning/ShotMap/ReloadFromRecordedShots", false);
 
   private Map<RobotState, Trigger> stateRequests = new EnumMap<>(RobotState.class);
   private Map<RobotState, Trigger> stateTriggers = new EnumMap<>(RobotState.class);
@@ -82,9 +122,35 @@ public class RobotContainer {
   @AutoLogOutput(key = "RobotState/PreviousState")
   private RobotState previousState = RobotState.IDLE;
 
+  private final ShotGrid shotGrid = ShotGrid.load();
+  private final ShotSolver shotSolver =
+      new ShotSolver(
+          shotGrid.isEmpty()
+              ? ShotModel.table(ShooterSettings::getTable)
+              : ShotModel.stationary(shotGrid),
+          shotSolverMaxIterations,
+          shotSolverToleranceMeters,
+          shotSolverVelocityFactor);
+  private double shotDistance = 0.0;
+  private double shotRadialVelocity = 0.0;
+  private double shotTangentialVelocity = 0.0;
   private double shootVelocityTarget = 0.0;
+  private double aimOffsetTarget = 0.0;
+  private double timeOfFlightTarget = Double.NaN;
   private Rotation2d angleTarget = new Rotation2d();
-
+  private final ShotReadiness shotReadiness;
+  private final NoteTrajectorySim noteSim = NoteTrajectorySim.fromConstants();
+  private final PreSpinPolicy preSpinPolicy = new PreSpinPolicy(this::expectedShotSpeed);
+  private final File shotLogFolder = new File(Filesystem.getOperatingDirectory(), shotLogDirectory);
+  private final ShotRecorder shotRecorder =
+      new ShotRecorder(
+          shotLogFolder,
+          shotLogMaxFileBytes,
+          shotLogQueueCapacity,
+          shotLogSyncBatchSize,
+          shotLogSyncIntervalSeconds);
+
+  private Shot pendingShot = null; // Captured when fed, recorded once its outcome is known
   private double startingTime = 0.0;
   private double endingTime = 0.0;
 
@@ -101,9 +167,22 @@ public class RobotContainer {
                 new ModuleIOSpark(2),
                 new ModuleIOSpark(3));
 
+        startupLocalizer =
+            new StartupLocalizer(drive::addVisionMeasurement, drive::getRotation, drive::setPose);
         vision =
             new Vision(
-                drive::addVisionMeasurement, new VisionIOPhotonVision(cameraName, robotToCamera));
+                startupLocalizer,
+                drive::addVisionHeadingMeasurement,
+                drive::getHeadingAt,
+                drive::getLinearSpeedAt,
+                drive::getAngularSpeedAt,
+                VisionCameraRegistry.load(),
+                camera ->
+                    switch (camera.ioType()) {
+                      case LIMELIGHT -> new VisionIOLimelight(camera.name(), drive::getRotation);
+                      case PHOTONVISION ->
+                          new VisionIOPhotonVision(camera.name(), camera.robotToCamera());
+                    });
 
         shooter = new Shooter(new ShooterIOSpark());
         break;
@@ -117,10 +196,25 @@ public class RobotContainer {
                 new ModuleIOSim(),
                 new ModuleIOSim(),
                 new ModuleIOSim());
+        startupLocalizer =
+            new StartupLocalizer(drive::addVisionMeasurement, drive::getRotation, drive::setPose);
         vision =
             new Vision(
-                drive::addVisionMeasurement,
-                new VisionIOPhotonVisionSim(cameraName, robotToCamera, drive::getPose));
+                startupLocalizer,
+                drive::addVisionHeadingMeasurement,
+                drive::getHeadingAt,
+                drive::getLinearSpeedAt,
+                drive::getAngularSpeedAt,
+                VisionCameraRegistry.load(),
+                camera ->
+                    useGeometricVisionSim
+                        ? new VisionIOGeometricSim(
+                            camera.name(),
+                            camera.robotToCamera(),
+                            camera.maxRangeMeters(),
+                            drive::getOdometryPose)
+                        : new VisionIOPhotonVisionSim(
+                            camera.name(), camera.robotToCamera(), drive::getOdometryPose));
         shooter = new Shooter(new ShooterIOSim());
         break;
 
@@ -133,11 +227,37 @@ public class RobotContainer {
                 new ModuleIO() {},
                 new ModuleIO() {},
                 new ModuleIO() {});
-        vision = new Vision(drive::addVisionMeasurement, new VisionIO() {});
+        startupLocalizer =
+            new StartupLocalizer(drive::addVisionMeasurement, drive::getRotation, drive::setPose);
+        vision =
+            new Vision(
+                startupLocalizer,
+                drive::addVisionHeadingMeasurement,
+                drive::getHeadingAt,
+                drive::getLinearSpeedAt,
+                drive::getAngularSpeedAt,
+                VisionCameraRegistry.load(),
+                camera -> new VisionIO() {});
         shooter = new Shooter(new ShooterIO() {});
         break;
     }
 
+    // Gate feeding on the aim, flywheel, chassis speed and pose confidence
+    shotReadiness =
+        new ShotReadiness(
+            shooter::getShootVelocityError,
+            () -> angleTarget.minus(drive.getRotation()).getRadians(),
+            () -> {
+              ChassisSpeeds velocity = drive.getFieldVelocity();
+              return Math.hypot(velocity.vxMetersPerSecond, velocity.vyMetersPerSecond);
+            },
+            vision::getPoseConfidence);
+
+    // Don't write shot files while replaying a log
+    if (Constants.currentMode != Constants.Mode.REPLAY) {
+      shotRecorder.start();
+    }
+
     // Set up auto routines
     autoChooser = new LoggedDashboardChooser<>("Auto Choices", AutoBuilder.buildAutoChooser());
 
@@ -171,24 +291,11 @@ public class RobotContainer {
     autoChooser.addOption(
         "Shooter SysId Dynamic Reverse", shooter.getShooterSysIdDynamic(Direction.kReverse));
 
-    enableSequence(); // Start putting interpolation data in
+    enableSequence(); // Load the shot map
   }
 
   public void enableSequence() {
-    ShooterSettings.settingsMap.put(2.14, new ShooterSettings(0.26, 280));
-    ShooterSettings.settingsMap.put(2.17, new ShooterSettings(0.32, 290));
-    ShooterSettings.settingsMap.put(2.39, new ShooterSettings(0.245, 270));
-    ShooterSettings.settingsMap.put(2.55, new ShooterSettings(0.38, 380));
-    ShooterSettings.settingsMap.put(2.78, new ShooterSettings(0.18, 400));
-    ShooterSettings.settingsMap.put(2.88, new ShooterSettings(0.197, 380));
-    ShooterSettings.settingsMap.put(2.9, new ShooterSettings(0.29, 400));
-    ShooterSettings.settingsMap.put(3.0, new ShooterSettings(0.411, 360));
-    ShooterSettings.settingsMap.put(3.13, new ShooterSettings(0.31, 620));
-    ShooterSettings.settingsMap.put(3.144, new ShooterSettings(0.39, 400));
-    ShooterSettings.settingsMap.put(3.15, new ShooterSettings(0.144, 400));
-    ShooterSettings.settingsMap.put(3.2, new ShooterSettings(0.28, 620));
-    ShooterSettings.settingsMap.put(3.3, new ShooterSettings(0.05, 620));
-    ShooterSettings.settingsMap.put(3.5, new ShooterSettings(0.27, 620));
+    ShotMapLoader.loadDeployed();
 
     // Configure your controller
     configureButtonBindings();
@@ -210,6 +317,33 @@ public class RobotContainer {
             () -> -controller.getLeftX(),
             () -> -controller.getRightX()));
 
+    // Seed the pose from vision while disabled, until the robot is first enabled
+    RobotModeTriggers.disabled()
+        .whileTrue(Commands.run(startupLocalizer::update).ignoringDisable(true))
+        .onFalse(Commands.runOnce(startupLocalizer::finish));
+
+    // Record the last shot without an outcome if none was given before disabling
+    RobotModeTriggers.disabled()
+        .onTrue(Commands.runOnce(() -> recordPendingShot(Outcome.UNKNOWN)).ignoringDisable(true));
+
+    // Swap in a new shot map without redeploying, from a file or from recorded hits
+    new Trigger(reloadShotMap::get)
+        .onTrue(
+            Commands.runOnce(
+                    () -> {
+                      reloadShotMap.set(false);
+                      ShotMapLoader.reloadMap(shotMapPath.get());
+                    })
+                .ignoringDisable(true));
+    new Trigger(reloadShotMapFromShots::get)
+        .onTrue(
+            Commands.runOnce(
+                    () -> {
+                      reloadShotMapFromShots.set(false);
+                      ShotMapLoader.reloadRecordedShots(shotLogFolder);
+                    })
+                .ignoringDisable(true));
+
     // Switch to X pattern when X button is pressed
     controller.x().onTrue(Commands.runOnce(drive::stopWithX, drive));
 
@@ -284,16 +418,17 @@ public class RobotContainer {
     stateTriggers
         .get(RobotState.AUTO_SCORE)
         .and(stateRequests.get(RobotState.SCORE))
-        // detect if parameters are correct
-        .and(
-            () -> {
-              return true;
-            })
+        .and(shotReadiness::isReadyToFeed)
+        // Capture the shot as it is fed, before the state changes
+        .onTrue(
+            Commands.runOnce(
+                () -> captureShot(shootVelocityTarget, aimOffsetTarget, timeOfFlightTarget)))
         .onTrue(forceState(RobotState.SCORE));
 
     stateTriggers
         .get(RobotState.MANUAL_SCORE)
         .and(stateRequests.get(RobotState.SCORE))
+        .onTrue(Commands.runOnce(this::captureManualShot))
         .onTrue(forceState(RobotState.SCORE));
 
     stateTriggers
@@ -320,9 +455,34 @@ public class RobotContainer {
     // State commands
     stateTriggers
         .get(RobotState.IDLE)
-        .or(stateTriggers.get(RobotState.READY))
+        .or(stateTriggers.get(RobotState.READY).and(() -> !usePreSpin))
         .whileTrue(Commands.run(shooter::stop));
 
+    // Spin up toward the expected shot while holding a note
+    stateTriggers
+        .get(RobotState.READY)
+        .and(() -> usePreSpin)
+        .whileTrue(
+            Commands.run(
+                    () -> {
+                      shooter.stopFeed();
+                      double speed =
+                          preSpinPolicy.calculate(
+                              drive.getPose().getTranslation(),
+                              drive.getFieldVelocity(),
+                              AllianceFlipUtil.apply(targetPosition),
+                              shooter.getShooterVelocityEncoder().in(RadiansPerSecond));
+                      if (speed > 0.0) {
+                        shooter.shoot(speed);
+                      } else {
+                        shooter.stop();
+                      }
+                    })
+                .beforeStarting(
+                    () ->
+                        preSpinPolicy.reset(
+                            shooter.getShooterVelocityEncoder().in(RadiansPerSecond))));
+
     stateTriggers
         .get(RobotState.IDLE)
         .and(controller.rightTrigger())
@@ -331,64 +491,109 @@ public class RobotContainer {
                 () -> startingTime = Timer.getTimestamp(),
                 () -> endingTime = Timer.getTimestamp() - startingTime));
 
+    // Save the last shot as a hit, with the flight timed by the right trigger if it was
     stateTriggers
         .get(RobotState.IDLE)
         .and(controller.povRight())
-        .onTrue(
-            Commands.run(
-                () -> {
-                  try {
-                    FileWriter fileWriter = new FileWriter("ShotMap.csv");
-                    fileWriter.write(
-                        distanceToTarget()
-                            + ","
-                            + shooter.getShootVelocity()
-                            + ","
-                            + angleToTarget()
-                            + ","
-                            + endingTime
-                            + "\n");
-                  } catch (IOException e) {
-                    System.out.println("IO Exception");
-                  }
-                }));
+        .onTrue(Commands.runOnce(() -> recordPendingShot(Outcome.HIT)));
 
     stateTriggers.get(RobotState.INTAKE).whileTrue(Commands.run(shooter::intake));
 
     stateTriggers.get(RobotState.EJECT).whileTrue(Commands.run(shooter::eject));
 
+    // Aim heading shared by the drive command and the readiness check
+    Supplier<Rotation2d> aimHeading =
+        DriveCommands.visionTargetHeading(drive, vision, () -> aimOffsetTarget);
+
+    // Look up the shot first, so the commands below see this cycle's targets
     stateTriggers
         .get(RobotState.AUTO_SCORE)
+        .onTrue(Commands.runOnce(shotReadiness::reset))
         .whileTrue(
-            DriveCommands.joystickDriveAtAngle(
-                drive, () -> -controller.getLeftY(), () -> -controller.getLeftX(), () -> 0.0));
+            Commands.run(
+                () -> {
+                  updateShotGeometry();
+
+                  // Solve for the shot, from the grid or else the distance-only table
+                  boolean solved = false;
+                  if (useShotSolver) {
+                    Translation2d target = AllianceFlipUtil.apply(targetPosition);
+                    Translation2d robot = drive.getPose().getTranslation();
+                    ChassisSpeeds velocity = drive.getFieldVelocity();
+                    boolean converged =
+                        shotSolver.solve(
+                            robot.getX(),
+                            robot.getY(),
+                            velocity.vxMetersPerSecond,
+                            velocity.vyMetersPerSecond,
+                            target.getX(),
+                            target.getY());
+                    Logger.recordOutput(
+                        "AutoAim/Solver/ExpectedMissMeters", shotSolver.getMissDistance());
+                    Logger.recordOutput("AutoAim/Solver/Iterations", shotSolver.getIterations());
+                    Logger.recordOutput("AutoAim/Solver/Converged", converged);
+
+                    // Keep the best iterate without a grid to fall back on
+                    solved = converged || shotGrid.isEmpty();
+                    if (solved) {
+                      aimOffsetTarget =
+                          MathUtil.angleModulus(
+                              shotSolver.getHeading()
+                                  - target.minus(robot).getAngle().getRadians());
+                      shootVelocityTarget = shotSolver.getSpeed();
+                      timeOfFlightTarget = shotSolver.getTimeOfFlight();
+                    }
+                  }
+
+                  // Otherwise look up the grid with a lead angle, or the table without motion
+                  if (solved) {
+                    Logger.recordOutput("AutoAim/Source", "Solver");
+                  } else if (shotGrid.isEmpty()) {
+                    aimOffsetTarget = 0.0;
+                    shootVelocityTarget = ShooterSettings.interpolatePower(shotDistance);
+                    timeOfFlightTarget = Double.NaN;
+                    Logger.recordOutput("AutoAim/Source", "Table");
+                  } else {
+                    double timeOfFlight =
+                        shotGrid.getTimeOfFlight(shotDistance, shotRadialVelocity);
+                    aimOffsetTarget =
+                        shotGrid.getAngleOffset(shotDistance, shotRadialVelocity)
+                            + ShotGrid.getLeadAngle(
+                                shotDistance, shotTangentialVelocity, timeOfFlight);
+                    shootVelocityTarget = shotGrid.getSpeed(shotDistance, shotRadialVelocity);
+                    timeOfFlightTarget = timeOfFlight;
+                    Logger.recordOutput("AutoAim/Source", "GridLead");
+                  }
+                  angleTarget = aimHeading.get();
+                  shotReadiness.update();
+                }));
 
     stateTriggers
         .get(RobotState.AUTO_SCORE)
-        .whileTrue(Commands.run(() -> shooter.shoot(shootVelocityTarget)));
+        .whileTrue(
+            DriveCommands.joystickDriveAtAngle(
+                drive,
+                () -> -controller.getLeftY(),
+                () -> -controller.getLeftX(),
+                () -> angleTarget));
 
     stateTriggers
         .get(RobotState.AUTO_SCORE)
-        .whileTrue(
-            Commands.run(
-                () -> {
-                  double timeOfFlight = distanceToTarget() * 0.0;
-                  Pose2d lookahead = drive.getLookahead(timeOfFlight);
-                  Translation2d lookaheadDelta =
-                      AllianceFlipUtil.apply(targetPosition).minus(lookahead.getTranslation());
-                  double distance = lookaheadDelta.getNorm();
-                  // INSERT REGRESSIONS HERE
-                  angleTarget = lookaheadDelta.getAngle().plus(new Rotation2d(distance * 0.0));
-                  shootVelocityTarget = distance * 1.0;
-                }));
+        .whileTrue(Commands.run(() -> shooter.shoot(shootVelocityTarget)));
 
     stateTriggers.get(RobotState.MANUAL_SCORE).whileTrue(Commands.run(shooter::shoot));
 
     stateTriggers.get(RobotState.SCORE).whileTrue(Commands.run(shooter::feed));
 
+    // Fly the note in sim to check the shot
+    if (Constants.currentMode == Constants.Mode.SIM) {
+      stateTriggers.get(RobotState.SCORE).onTrue(Commands.runOnce(this::simulateShot));
+    }
+
     stateTriggers
         .get(RobotState.MANUAL)
         .and(controller.rightTrigger())
+        .onTrue(Commands.runOnce(this::captureManualShot))
         .whileTrue(Commands.runEnd(shooter::feed, shooter::stopFeed));
 
     stateTriggers
@@ -397,24 +602,22 @@ public class RobotContainer {
         .onTrue(
             Commands.sequence(
                 Commands.race(
-                    DriveCommands.joystickDriveAtAngle(
+                    DriveCommands.joystickDriveToAngle(
                         drive,
                         () -> -controller.getLeftY(),
                         () -> -controller.getLeftX(),
-                        () ->
-                            ShooterSettings.interpolateAngle(
-                                targetPosition.minus(drive.getPose().getTranslation()).getNorm())),
+                        DriveCommands.targetHeading(
+                            drive, () -> ShooterSettings.interpolateAngle(distanceToTarget()))),
                     Commands.run(
-                        () ->
-                            shooter.shoot(
-                                ShooterSettings.interpolatePower(
-                                    targetPosition
-                                        .minus(drive.getPose().getTranslation())
-                                        .getNorm())),
+                        () -> shooter.shoot(ShooterSettings.interpolatePower(distanceToTarget())),
                         shooter)),
 
                 // Run the feeder
-                Commands.runOnce(shooter::feed)))
+                Commands.runOnce(
+                    () -> {
+                      captureManualShot();
+                      shooter.feed();
+                    })))
         .or(new Trigger(() -> !shooter.getDetected()))
         .onTrue(Commands.runOnce(() -> shooter.stop()));
 
@@ -426,6 +629,7 @@ public class RobotContainer {
     stateTriggers
         .get(RobotState.MANUAL)
         .and(controller.a())
+        .onTrue(Commands.runOnce(this::captureManualShot))
         .whileTrue(Commands.runEnd(shooter::feed, shooter::stopFeed));
 
     stateTriggers
@@ -457,9 +661,115 @@ public class RobotContainer {
         });
   }
 
+  /**
+   * Splits the field velocity into radial (away from the target) and tangential (counterclockwise
+   * around the target) components, and updates the distance to the target.
+   */
+  private void updateShotGeometry() {
+    Translation2d robotToTarget =
+        AllianceFlipUtil.apply(targetPosition).minus(drive.getPose().getTranslation());
+    shotDistance = robotToTarget.getNorm();
+    double directionX = robotToTarget.getX() / shotDistance;
+    double directionY = robotToTarget.getY() / shotDistance;
+    ChassisSpeeds velocity = drive.getFieldVelocity();
+    shotRadialVelocity =
+        ShotGrid.getRadialVelocity(
+            directionX, directionY, velocity.vxMetersPerSecond, velocity.vyMetersPerSecond);
+    shotTangentialVelocity =
+        ShotGrid.getTangentialVelocity(
+            directionX, directionY, velocity.vxMetersPerSecond, velocity.vyMetersPerSecond);
+  }
+
+  /**
+   * Captures a shot as it is fed, from the current geometry and pose. The shot is recorded once its
+   * outcome is known, or without one when the next shot is fed.
+   */
+  private void captureShot(double velocity, double angleOffset, double timeOfFlight) {
+    recordPendingShot(Outcome.UNKNOWN);
+    updateShotGeometry();
+    Pose2d pose = drive.getPose();
+    pendingShot =
+        new Shot(
+            shotDistance,
+            shotRadialVelocity,
+            angleOffset,
+            velocity,
+            timeOfFlight,
+            shotTangentialVelocity,
+            Timer.getTimestamp(),
+            pose.getX(),
+            pose.getY(),
+            pose.getRotation().getRadians(),
+            Outcome.UNKNOWN);
+  }
+
+  /** Captures a manually aimed shot at the measured flywheel speed and heading, untimed. */
+  private void captureManualShot() {
+    captureShot(shooter.getShootVelocity(), -angleToTarget(), Double.NaN);
+  }
+
+  /**
+   * Records the pending shot with an outcome. The time of flight is replaced by the right trigger
+   * timing if the flight was timed after the shot.
+   */
+  private void recordPendingShot(Outcome outcome) {
+    if (pendingShot == null) {
+      return;
+    }
+    double timeOfFlight =
+        startingTime > pendingShot.timestamp() ? endingTime : pendingShot.timeOfFlight();
+    shotRecorder.record(pendingShot.withOutcome(timeOfFlight, outcome));
+    pendingShot = null;
+    Logger.recordOutput("ShotRecorder/DroppedCount", shotRecorder.getDroppedCount());
+  }
+
+  /** Returns the stationary shot speed at a distance, or zero without shot data. */
+  private double expectedShotSpeed(double distance) {
+    if (!shotGrid.isEmpty()) {
+      return shotGrid.getSpeed(distance, 0.0);
+    }
+    ShotTable table = ShooterSettings.getTable();
+    return table.size() > 0 ? table.getPower(distance) : 0.0;
+  }
+
+  /** Flies a note from the current robot state and logs whether it would score. */
+  private void simulateShot() {
+    Pose2d pose = drive.getPose();
+    ChassisSpeeds velocity = drive.getFieldVelocity();
+    Translation2d target = AllianceFlipUtil.apply(targetPosition);
+    double exitSpeed =
+        NoteTrajectorySim.getExitSpeed(shooter.getShooterVelocityEncoder().in(RadiansPerSecond));
+    NoteTrajectorySim.Result result =
+        noteSim.simulate(
+            pose.getX(),
+            pose.getY(),
+            velocity.vxMetersPerSecond,
+            velocity.vyMetersPerSecond,
+            pose.getRotation().getRadians(),
+            exitSpeed,
+            target.getX(),
+            target.getY());
+    Logger.recordOutput("NoteSim/Hit", result.hit());
+    Logger.recordOutput("NoteSim/MissDistanceMeters", result.missDistance());
+    Logger.recordOutput("NoteSim/TimeOfFlightSeconds", result.timeOfFlight());
+    Logger.recordOutput("NoteSim/ApexHeightMeters", result.apexHeight());
+    Logger.recordOutput(
+        "NoteSim/Trajectory",
+        noteSim.trajectory(
+            pose.getX(),
+            pose.getY(),
+            velocity.vxMetersPerSecond,
+            velocity.vyMetersPerSecond,
+            pose.getRotation().getRadians(),
+            exitSpeed,
+            target.getX(),
+            target.getY(),
+            5));
+  }
+
   @AutoLogOutput(key = "RobotState/DistanceToTarget")
   private double distanceToTarget() {
-    return targetPosition.minus(drive.getPose().getTranslation()).getNorm();
+    return AllianceFlipUtil.apply(targetPosition).minus(drive.getPose().getTranslation()).getNorm();
   }
 
   @AutoLogOutput(key = "RobotState/AngleToTarget")
@@ -18,6 +18,9 @@ import edu.wpi.first.wpilibj2.command.Commands;
 import frc.robot.Constants;
 import frc.robot.subsystems.drive.Drive;
 import frc.robot.subsystems.drive.DriveConstants;
+import frc.robot.subsystems.vision.Vision;
+import frc.robot.subsystems.vision.VisionConstants;
+import frc.robot.util.AllianceFlipUtil;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.LinkedList;
@@ -99,14 +102,14 @@ public class DriveCommands {
   /**
    * Field relative drive command using joystick for linear control and PID for angular control.
    * Possible use cases include snapping to an angle, aiming at a vision target, or controlling
-   * absolute rotation with a joystick.
+   * absolute rotation with a joystick. The heading is sampled every cycle, so it can track a
+   * moving goal. The command never finishes on its own.
    */
   public static Command joystickDriveAtAngle(
       Drive drive,
       DoubleSupplier xSupplier,
       DoubleSupplier ySupplier,
-      Supplier<Double> targetAngleOffsetRadians // Target-relative offset
-      ) {
+      Supplier<Rotation2d> headingSupplier) {
 
     ProfiledPIDController angleController =
         new ProfiledPIDController(
@@ -118,24 +121,16 @@ public class DriveCommands {
     angleController.enableContinuousInput(-Math.PI, Math.PI);
     angleController.setTolerance(tolerance.get());
 
-    Supplier<Double> targetHeadingSupplier =
-        () -> {
-          Rotation2d robotToTargetAngle =
-              Constants.targetPosition.minus(drive.getPose().getTranslation()).getAngle();
-
-          return MathUtil.angleModulus(
-              robotToTargetAngle.getRadians() + targetAngleOffsetRadians.get());
-        };
-
     return Commands.run(
             () -> {
               Translation2d linearVelocity =
                   getLinearVelocityFromJoysticks(xSupplier.getAsDouble(), ySupplier.getAsDouble());
 
+              angleController.setGoal(headingSupplier.get().getRadians());
               double omega = angleController.calculate(drive.getRotation().getRadians());
 
               Logger.recordOutput("AutoAim/RobotRadians", drive.getRotation().getRadians());
-              Logger.recordOutput("AutoAim/TargetHeading", targetHeadingSupplier.get());
+              Logger.recordOutput("AutoAim/TargetHeading", angleController.getGoal().position);
               Logger.recordOutput("AutoAim/Error", angleController.getPositionError());
 
               ChassisSpeeds speeds =
@@ -156,21 +151,71 @@ public class DriveCommands {
                           : drive.getRotation()));
             },
             drive)
-        .beforeStarting(
-            () -> {
-              angleController.reset(drive.getRotation().getRadians());
-              angleController.setGoal(targetHeadingSupplier.get());
-            })
+        .beforeStarting(() -> angleController.reset(drive.getRotation().getRadians()));
+  }
+
+  /**
+   * Like {@link #joystickDriveAtAngle}, but finishes once the robot is within tolerance of the
+   * heading, for snapping to an angle before another action.
+   */
+  public static Command joystickDriveToAngle(
+      Drive drive,
+      DoubleSupplier xSupplier,
+      DoubleSupplier ySupplier,
+      Supplier<Rotation2d> headingSupplier) {
+    return joystickDriveAtAngle(drive, xSupplier, ySupplier, headingSupplier)
         .until(
             () -> {
-              double error =
-                  MathUtil.angleModulus(
-                      targetHeadingSupplier.get() - drive.getRotation().getRadians());
+              double error = headingSupplier.get().minus(drive.getRotation()).getRadians();
               Logger.recordOutput("AutoAim/AngleError", Math.abs(error));
               return Math.abs(error) < tolerance.get();
             });
   }
 
+  /**
+   * Returns the field heading from the fused pose to the alliance's target, plus a target-relative
+   * offset, for use with {@link #joystickDriveAtAngle}.
+   */
+  public static Supplier<Rotation2d> targetHeading(
+      Drive drive, DoubleSupplier targetAngleOffsetRadians) {
+    return () ->
+        AllianceFlipUtil.apply(Constants.targetPosition)
+            .minus(drive.getPose().getTranslation())
+            .getAngle()
+            .plus(new Rotation2d(targetAngleOffsetRadians.getAsDouble()));
+  }
+
+  /**
+   * Returns a heading like {@link #targetHeading}, but blended toward the camera's latest target
+   * yaw as pose confidence drops. The camera heading is corrected for latency using the heading
+   * history, so aiming still converges when odometry has drifted.
+   */
+  public static Supplier<Rotation2d> visionTargetHeading(
+      Drive drive, Vision vision, DoubleSupplier targetAngleOffsetRadians) {
+    return () -> {
+      // Aim from the fused pose
+      double poseHeading =
+          AllianceFlipUtil.apply(Constants.targetPosition)
+              .minus(drive.getPose().getTranslation())
+              .getAngle()
+              .getRadians();
+
+      // Blend toward the camera target by how little the pose is trusted
+      var visionHeading =
+          vision.getTargetHeading(
+              VisionConstants.aimCameraIndex, VisionConstants.aimTargetMaxAgeSeconds);
+      double visionWeight = 1.0 - vision.getPoseConfidence();
+      double heading = poseHeading;
+      if (visionHeading.isPresent()) {
+        heading +=
+            visionWeight * MathUtil.angleModulus(visionHeading.get().getRadians() - poseHeading);
+      }
+      Logger.recordOutput("AutoAim/VisionWeight", visionHeading.isPresent() ? visionWeight : 0.0);
+
+      return new Rotation2d(heading + targetAngleOffsetRadians.getAsDouble());
+    };
+  }
+
   /**
    * Measures the velocity feedforward constants for the drive motors.
    *
@@ -25,13 +25,16 @@ import edu.wpi.first.hal.FRCNetComm.tInstances;
 import edu.wpi.first.hal.FRCNetComm.tResourceType;
 import edu.wpi.first.hal.HAL;
 import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.interpolation.TimeInterpolatableBuffer;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.numbers.N1;
@@ -40,12 +43,14 @@ import edu.wpi.first.wpilibj.Alert;
 import edu.wpi.first.wpilibj.Alert.AlertType;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import frc.robot.Constants;
 import frc.robot.Constants.Mode;
 import frc.robot.util.LocalADStarAK;
+import frc.robot.util.LoopProfiler;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import org.littletonrobotics.junction.AutoLogOutput;
@@ -57,6 +62,7 @@ public class Drive extends SubsystemBase {
   private final GyroIOInputsAutoLogged gyroInputs = new GyroIOInputsAutoLogged();
   private final Module[] modules = new Module[4]; // FL, FR, BL, BR
   private final SysIdRoutine sysId;
+  private final LoopProfiler.Section periodicProfile = LoopProfiler.section("Subsystems/Drive");
   private final Alert gyroDisconnectedAlert =
       new Alert("Disconnected gyro, using kinematics as fallback.", AlertType.kError);
 
@@ -71,6 +77,16 @@ public class Drive extends SubsystemBase {
       };
   private SwerveDrivePoseEstimator poseEstimator =
       new SwerveDrivePoseEstimator(kinematics, rawGyroRotation, lastModulePositions, new Pose2d());
+  private SwerveDriveOdometry odometry = // Without vision, used as the ground truth in sim
+      new SwerveDriveOdometry(kinematics, rawGyroRotation, lastModulePositions, new Pose2d());
+
+  // Velocity history, used to weight vision observations by motion at capture time
+  private final TimeInterpolatableBuffer<Double> linearSpeedHistory =
+      TimeInterpolatableBuffer.createDoubleBuffer(velocityHistorySeconds);
+  private final TimeInterpolatableBuffer<Double> angularSpeedHistory =
+      TimeInterpolatableBuffer.createDoubleBuffer(velocityHistorySeconds);
+  private double lastSampleTimestamp = 0.0;
+  private double lastGyroFaultTimestamp = Double.NEGATIVE_INFINITY;
 
   public Drive(
       GyroIO gyroIO,
@@ -126,6 +142,7 @@ public class Drive extends SubsystemBase {
 
   @Override
   public void periodic() {
+    periodicProfile.start();
     odometryLock.lock(); // Prevents odometry updates while reading data
     gyroIO.updateInputs(gyroInputs);
     Logger.processInputs("Drive/Gyro", gyroInputs);
@@ -166,21 +183,38 @@ public class Drive extends SubsystemBase {
       }
 
       // Update gyro angle
+      Rotation2d lastGyroRotation = rawGyroRotation;
+      Twist2d twist = kinematics.toTwist2d(moduleDeltas);
       if (gyroInputs.connected) {
         // Use the real gyro angle
-        rawGyroRotation = gyroInputs.odometryYawPositions[i];
+        rawGyroRotation = new Rotation2d(gyroInputs.odometryYawPositionsRad[i]);
       } else {
         // Use the angle delta from the kinematics and module deltas
-        Twist2d twist = kinematics.toTwist2d(moduleDeltas);
         rawGyroRotation = rawGyroRotation.plus(new Rotation2d(twist.dtheta));
       }
 
+      // Record linear and angular speed for this sample
+      double sampleDt = sampleTimestamps[i] - lastSampleTimestamp;
+      if (sampleDt > 0.0 && sampleDt < velocityHistorySeconds) {
+        linearSpeedHistory.addSample(
+            sampleTimestamps[i], Math.hypot(twist.dx, twist.dy) / sampleDt);
+        angularSpeedHistory.addSample(
+            sampleTimestamps[i],
+            Math.abs(rawGyroRotation.minus(lastGyroRotation).getRadians()) / sampleDt);
+      }
+      lastSampleTimestamp = sampleTimestamps[i];
+
       // Apply update
       poseEstimator.updateWithTime(sampleTimestamps[i], rawGyroRotation, modulePositions);
+      odometry.update(rawGyroRotation, modulePositions);
     }
 
     // Update gyro alert
     gyroDisconnectedAlert.set(!gyroInputs.connected && Constants.currentMode != Mode.SIM);
+    if (!gyroInputs.connected && Constants.currentMode != Mode.SIM) {
+      lastGyroFaultTimestamp = Timer.getFPGATimestamp();
+    }
+    periodicProfile.stop();
   }
 
   /**
@@ -293,6 +327,16 @@ public class Drive extends SubsystemBase {
     return poseEstimator.getEstimatedPosition();
   }
 
+  /**
+   * Returns the pose from wheel odometry and the gyro only, without vision measurements. In sim,
+   * this tracks the simulated robot exactly, so it is used as the ground truth for simulated
+   * cameras.
+   */
+  @AutoLogOutput(key = "Odometry/WheelOnly")
+  public Pose2d getOdometryPose() {
+    return odometry.getPoseMeters();
+  }
+
   /** Returns the current odometry rotation. */
   public Rotation2d getRotation() {
     return getPose().getRotation();
@@ -301,6 +345,7 @@ public class Drive extends SubsystemBase {
   /** Resets the current odometry pose. */
   public void setPose(Pose2d pose) {
     poseEstimator.resetPosition(rawGyroRotation, getModulePositions(), pose);
+    odometry.resetPosition(rawGyroRotation, getModulePositions(), pose);
   }
 
   /** Adds a new timestamped vision measurement. */
@@ -312,6 +357,44 @@ public class Drive extends SubsystemBase {
         visionRobotPoseMeters, timestampSeconds, visionMeasurementStdDevs);
   }
 
+  /**
+   * Adds a new timestamped heading-only vision measurement. The translation is taken from the
+   * estimated pose at the same timestamp and given infinite std devs, so only the heading is
+   * corrected. Vision is trusted more while the gyro is disconnected and shortly after it recovers.
+   */
+  public void addVisionHeadingMeasurement(
+      Rotation2d visionRobotHeading, double timestampSeconds, double visionHeadingStdDev) {
+    var sample = poseEstimator.sampleAt(timestampSeconds);
+    if (sample.isEmpty()) {
+      return;
+    }
+    if (Timer.getFPGATimestamp() - lastGyroFaultTimestamp < visionHeadingRecoverySeconds) {
+      visionHeadingStdDev *= visionHeadingGyroFaultFactor;
+    }
+    poseEstimator.addVisionMeasurement(
+        new Pose2d(sample.get().getTranslation(), visionRobotHeading),
+        timestampSeconds,
+        VecBuilder.fill(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, visionHeadingStdDev));
+  }
+
+  /** Returns the estimated heading at the given timestamp, or the current heading if unknown. */
+  public Rotation2d getHeadingAt(double timestampSeconds) {
+    return poseEstimator
+        .sampleAt(timestampSeconds)
+        .map(Pose2d::getRotation)
+        .orElseGet(this::getRotation);
+  }
+
+  /** Returns the measured linear speed in meters per sec at the given timestamp. */
+  public double getLinearSpeedAt(double timestampSeconds) {
+    return linearSpeedHistory.getSample(timestampSeconds).orElse(0.0);
+  }
+
+  /** Returns the measured angular speed in radians per sec at the given timestamp. */
+  public double getAngularSpeedAt(double timestampSeconds) {
+    return angularSpeedHistory.getSample(timestampSeconds).orElse(0.0);
+  }
+
   /** Returns the maximum linear speed in meters per sec. */
   public double getMaxLinearSpeedMetersPerSec() {
     return maxSpeedMetersPerSec;
@@ -322,6 +405,11 @@ public class Drive extends SubsystemBase {
     return maxSpeedMetersPerSec / driveBaseRadius;
   }
 
+  /** Returns the measured chassis speeds in the field frame. */
+  public ChassisSpeeds getFieldVelocity() {
+    return ChassisSpeeds.fromRobotRelativeSpeeds(getChassisSpeeds(), getRotation());
+  }
+
   public Pose2d getLookahead(double timeSeconds) {
     Twist2d twist = getChassisSpeeds().toTwist2d(timeSeconds);
 
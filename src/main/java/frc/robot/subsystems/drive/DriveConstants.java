@@ -22,6 +22,9 @@ import edu.wpi.first.math.util.Units;
 public class DriveConstants {
   public static final double maxSpeedMetersPerSec = 4.8;
   public static final double odometryFrequency = 100.0; // Hz
+  public static final double velocityHistorySeconds = 1.5; // Matches pose estimator history
+  public static final double visionHeadingGyroFaultFactor = 0.2; // Std dev scale without gyro
+  public static final double visionHeadingRecoverySeconds = 2.0; // After the gyro reconnects
   public static final double trackWidth = Units.inchesToMeters(20);
   public static final double wheelBase = Units.inchesToMeters(20);
   public static final double driveBaseRadius = Math.hypot(trackWidth / 2.0, wheelBase / 2.0);
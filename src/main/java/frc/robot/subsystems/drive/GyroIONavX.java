@@ -38,13 +38,8 @@ public class GyroIONavX implements GyroIO {
     inputs.yawPosition = Rotation2d.fromDegrees(-navX.getAngle());
     inputs.yawVelocityRadPerSec = Units.degreesToRadians(-navX.getRawGyroZ());
 
-    inputs.odometryYawTimestamps =
-        yawTimestampQueue.stream().mapToDouble((Double value) -> value).toArray();
-    inputs.odometryYawPositions =
-        yawPositionQueue.stream()
-            .map((Double value) -> Rotation2d.fromDegrees(-value))
-            .toArray(Rotation2d[]::new);
-    yawTimestampQueue.clear();
-    yawPositionQueue.clear();
+    inputs.odometryYawTimestamps = SparkOdometryThread.drainQueue(yawTimestampQueue, 1.0);
+    inputs.odometryYawPositionsRad =
+        SparkOdometryThread.drainQueue(yawPositionQueue, -Units.degreesToRadians(1.0));
   }
 }
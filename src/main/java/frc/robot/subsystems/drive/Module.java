@@ -52,7 +52,7 @@ public class Module {
     odometryPositions = new SwerveModulePosition[sampleCount];
     for (int i = 0; i < sampleCount; i++) {
       double positionMeters = inputs.odometryDrivePositionsRad[i] * wheelRadiusMeters;
-      Rotation2d angle = inputs.odometryTurnPositions[i];
+      Rotation2d angle = new Rotation2d(inputs.odometryTurnPositionsRad[i]);
       odometryPositions[i] = new SwerveModulePosition(positionMeters, angle);
     }
 
@@ -33,7 +33,7 @@ public interface ModuleIO {
 
     public double[] odometryTimestamps = new double[] {};
     public double[] odometryDrivePositionsRad = new double[] {};
-    public Rotation2d[] odometryTurnPositions = new Rotation2d[] {};
+    public double[] odometryTurnPositionsRad = new double[] {};
   }
 
   /** Updates the set of loggable inputs. */
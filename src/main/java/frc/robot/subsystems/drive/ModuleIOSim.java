@@ -88,7 +88,7 @@ public class ModuleIOSim implements ModuleIO {
     // Update odometry inputs (50Hz because high-frequency odometry in sim doesn't matter)
     inputs.odometryTimestamps = new double[] {Timer.getFPGATimestamp()};
     inputs.odometryDrivePositionsRad = new double[] {inputs.drivePositionRad};
-    inputs.odometryTurnPositions = new Rotation2d[] {inputs.turnPosition};
+    inputs.odometryTurnPositionsRad = new double[] {inputs.turnPosition.getRadians()};
   }
 
   @Override
@@ -216,17 +216,9 @@ public class ModuleIOSpark implements ModuleIO {
     inputs.turnConnected = turnConnectedDebounce.calculate(!sparkStickyFault);
 
     // Update odometry inputs
-    inputs.odometryTimestamps =
-        timestampQueue.stream().mapToDouble((Double value) -> value).toArray();
-    inputs.odometryDrivePositionsRad =
-        drivePositionQueue.stream().mapToDouble((Double value) -> value).toArray();
-    inputs.odometryTurnPositions =
-        turnPositionQueue.stream()
-            .map((Double value) -> new Rotation2d(value))
-            .toArray(Rotation2d[]::new);
-    timestampQueue.clear();
-    drivePositionQueue.clear();
-    turnPositionQueue.clear();
+    inputs.odometryTimestamps = SparkOdometryThread.drainQueue(timestampQueue, 1.0);
+    inputs.odometryDrivePositionsRad = SparkOdometryThread.drainQueue(drivePositionQueue, 1.0);
+    inputs.odometryTurnPositionsRad = SparkOdometryThread.drainQueue(turnPositionQueue, 1.0);
   }
 
   @Override
@@ -83,6 +83,19 @@ public class SparkOdometryThread {
     return queue;
   }
 
+  /**
+   * Drains a queue into a new array, scaling each sample. Must be called while holding {@link
+   * Drive#odometryLock}. A new array is returned each time because the logger keeps a reference to
+   * logged arrays after the inputs are processed.
+   */
+  public static double[] drainQueue(Queue<Double> queue, double scale) {
+    double[] values = new double[queue.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = queue.poll() * scale;
+    }
+    return values;
+  }
+
   private void run() {
     // Save new data to queues
     Drive.odometryLock.lock();
@@ -0,0 +1,119 @@
+package frc.robot.subsystems.shooter;
+
+import static frc.robot.subsystems.shooter.ShooterConstants.*;
+
+import au.grapplerobotics.interfaces.LaserCanInterface;
+import au.grapplerobotics.interfaces.LaserCanInterface.Measurement;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.subsystems.shooter.ShooterIO.ShooterIOInputs;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Samples a LaserCAN on a background thread, faster than the main loop.
+ *
+ * <p>The sensor only produces one measurement per timing budget, so polling faster mostly reads
+ * the same measurement again. A read counts as a new measurement when any field changed, or when a
+ * full timing budget has passed since the last one, since a still note reads the same. A note is
+ * detected with hysteresis, entering below {@link ShooterConstants#detectedTheshold} and leaving
+ * above {@link ShooterConstants#laserCanReleaseThresholdMm}, and each change must hold for {@link
+ * ShooterConstants#laserCanDebounceMeasurements} new measurements before it is accepted. Accepted
+ * changes are queued as note arrival and departure events, timestamped with the estimated capture
+ * time of the first measurement that crossed the threshold rather than when the main loop noticed.
+ */
+public class LaserCanSampler {
+  private final LaserCanInterface laserCan;
+  private final Notifier notifier = new Notifier(this::run);
+  private final Queue<Double> arrivalTimestamps = new ArrayBlockingQueue<>(20);
+  private final Queue<Double> departureTimestamps = new ArrayBlockingQueue<>(20);
+
+  // Guarded by this
+  private boolean connected = false;
+  private double distanceMm = 0.0;
+  private int lastStatus = -1;
+  private int lastDistanceMm = -1;
+  private int lastAmbient = -1;
+  private double lastMeasurementTimestamp = 0.0;
+  private boolean near = false;
+  private int nearCount = 0;
+  private double nearChangeTimestamp = 0.0;
+  private boolean detected = false;
+
+  public LaserCanSampler(LaserCanInterface laserCan) {
+    this.laserCan = laserCan;
+    notifier.setName("LaserCanSampler");
+  }
+
+  public void start() {
+    notifier.startPeriodic(laserCanSamplePeriodSeconds);
+  }
+
+  /** Copies the latest state and the edges since the last call into the inputs. */
+  public synchronized void updateInputs(ShooterIOInputs inputs) {
+    inputs.laserCanConnected = connected;
+    inputs.laserCanDistance = distanceMm;
+    inputs.noteDetected = detected;
+    inputs.noteArrivalTimestamps = drain(arrivalTimestamps);
+    inputs.noteDepartureTimestamps = drain(departureTimestamps);
+  }
+
+  /** Drains a queue into a new array, since the logger keeps a reference to logged arrays. */
+  private static double[] drain(Queue<Double> queue) {
+    double[] values = new double[queue.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = queue.poll();
+    }
+    return values;
+  }
+
+  private synchronized void run() {
+    double timestamp = RobotController.getFPGATime() / 1e6;
+    Measurement measurement = laserCan.getMeasurement();
+    connected = measurement != null;
+    if (measurement == null) {
+      return;
+    }
+    distanceMm = measurement.distance_mm;
+
+    // Skip reads of a measurement that was already processed. Consecutive measurements are often
+    // identical, so an unchanged read is also new once a full timing budget has passed.
+    double budgetSeconds = measurement.budget_ms / 1000.0;
+    boolean changed =
+        measurement.status != lastStatus
+            || measurement.distance_mm != lastDistanceMm
+            || measurement.ambient != lastAmbient;
+    if (!changed
+        && timestamp - lastMeasurementTimestamp < budgetSeconds + laserCanSamplePeriodSeconds) {
+      return;
+    }
+    lastStatus = measurement.status;
+    lastDistanceMm = measurement.distance_mm;
+    lastAmbient = measurement.ambient;
+    lastMeasurementTimestamp = timestamp;
+
+    // Estimate the capture time: new since the last poll, centered in the ranging window before it
+    double measurementTimestamp =
+        timestamp - laserCanSamplePeriodSeconds / 2.0 - budgetSeconds / 2.0;
+
+    // Apply hysteresis, treating invalid measurements as no note
+    boolean valid = measurement.status == LaserCanInterface.LASERCAN_STATUS_VALID_MEASUREMENT;
+    boolean nextNear =
+        valid
+            && (near
+                ? measurement.distance_mm <= laserCanReleaseThresholdMm
+                : measurement.distance_mm < detectedTheshold);
+    if (nextNear != near) {
+      near = nextNear;
+      nearCount = 0;
+      nearChangeTimestamp = measurementTimestamp;
+    }
+    nearCount++;
+
+    // Accept the change once it has held for enough new measurements
+    if (near != detected && nearCount >= laserCanDebounceMeasurements) {
+      detected = near;
+      (detected ? arrivalTimestamps : departureTimestamps).offer(nearChangeTimestamp);
+    }
+  }
+}
@@ -5,41 +5,188 @@ import static edu.wpi.first.units.Units.RadiansPerSecond;
 import static edu.wpi.first.units.Units.Volts;
 import static frc.robot.subsystems.shooter.ShooterConstants.*;
 
+import edu.wpi.first.math.Nat;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.controller.LinearPlantInversionFeedforward;
+import edu.wpi.first.math.controller.LinearQuadraticRegulator;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.math.estimator.KalmanFilter;
 import edu.wpi.first.math.filter.SlewRateLimiter;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.system.LinearSystem;
+import edu.wpi.first.math.system.LinearSystemLoop;
+import edu.wpi.first.math.system.plant.LinearSystemId;
 import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.units.measure.Voltage;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine.Direction;
+import frc.robot.subsystems.shooter.ShooterConstants.ShootControlMode;
+import frc.robot.util.LoopProfiler;
 import org.littletonrobotics.junction.Logger;
 import org.littletonrobotics.junction.networktables.LoggedNetworkNumber;
 
 public class Shooter extends SubsystemBase {
   private final ShooterIO io;
   private final ShooterIOInputsAutoLogged inputs = new ShooterIOInputsAutoLogged();
+  private final LoopProfiler.Section periodicProfile = LoopProfiler.section("Subsystems/Shooter");
 
   LoggedNetworkNumber shootVelocity =
       new LoggedNetworkNumber("Tuning/Shooter/ShootVelocity", maxVelocity);
 
   SimpleMotorFeedforward feedforward = new SimpleMotorFeedforward(shootKs, shootKv, shootKa);
 
+  // Flywheel velocity control
+  private final SlewRateLimiter ramp = new SlewRateLimiter(shootRampRate);
+  private final LinearSystem<N1, N1, N1> plant =
+      LinearSystemId.createFlywheelSystem(shootMotorGearbox, dcMotorMOI, 1.0);
+  private final LinearSystemLoop<N1, N1, N1> loop;
+  private final LinearPlantInversionFeedforward<N1, N1, N1> plantFeedforward =
+      new LinearPlantInversionFeedforward<>(plant, shootRioPeriodSeconds);
+  private boolean closedLoopActive = false;
+  private double goalRadPerSec = 0.0;
+  private double rampedGoalRadPerSec = 0.0;
+
+  // Shot recovery tracking
+  private boolean atGoal = false;
+  private boolean recovering = false;
+  private double shotDropTimestamp = 0.0;
+  private int shotCount = 0;
+
+  // Note edges from the sensor, in FPGA seconds
+  private double noteArrivalTimestamp = Double.NaN;
+  private double noteDepartureTimestamp = Double.NaN;
+
   public Shooter(ShooterIO io) {
     this.io = io;
+
+    // Build the roboRIO loop, compensating for the filtering delay of the velocity measurement
+    var controller =
+        new LinearQuadraticRegulator<>(
+            plant,
+            VecBuilder.fill(shootLqrVelocityTolerance),
+            VecBuilder.fill(shootLqrMaxVolts),
+            shootRioPeriodSeconds);
+    controller.latencyCompensate(plant, shootRioPeriodSeconds, shootMeasurementDelaySeconds);
+    var observer =
+        new KalmanFilter<>(
+            Nat.N1(),
+            Nat.N1(),
+            plant,
+            VecBuilder.fill(shootModelStdDev),
+            VecBuilder.fill(shootEncoderStdDev),
+            shootRioPeriodSeconds);
+    loop = new LinearSystemLoop<>(plant, controller, observer, 12.0, shootRioPeriodSeconds);
+
+    // Send gains for the Spark's loop, computed at its own period
+    if (shootControlMode == ShootControlMode.SPARK_STATE_SPACE) {
+      var sparkController =
+          new LinearQuadraticRegulator<>(
+              plant,
+              VecBuilder.fill(shootLqrVelocityTolerance),
+              VecBuilder.fill(shootLqrMaxVolts),
+              shootSparkPeriodSeconds);
+      sparkController.latencyCompensate(
+          plant, shootSparkPeriodSeconds, shootMeasurementDelaySeconds);
+      io.configureShootGains(sparkController.getK().get(0, 0));
+      Logger.recordOutput("Shooter/SparkKp", sparkController.getK().get(0, 0));
+    }
   }
 
   @Override
   public void periodic() {
+    periodicProfile.start();
     io.updateInputs(inputs);
     Logger.processInputs("Shooter", inputs);
+    updateNoteEdges();
+    updateRecovery();
+    periodicProfile.stop();
   }
 
+  /** Keeps the latest note edges and logs how long a note sat in the shooter. */
+  private void updateNoteEdges() {
+    if (inputs.noteArrivalTimestamps.length > 0) {
+      noteArrivalTimestamp = inputs.noteArrivalTimestamps[inputs.noteArrivalTimestamps.length - 1];
+      Logger.recordOutput("Shooter/NoteArrivalTimestamp", noteArrivalTimestamp);
+    }
+    if (inputs.noteDepartureTimestamps.length > 0) {
+      noteDepartureTimestamp =
+          inputs.noteDepartureTimestamps[inputs.noteDepartureTimestamps.length - 1];
+      Logger.recordOutput("Shooter/NoteDepartureTimestamp", noteDepartureTimestamp);
+      if (noteDepartureTimestamp > noteArrivalTimestamp) {
+        Logger.recordOutput(
+            "Shooter/NoteHeldSeconds", noteDepartureTimestamp - noteArrivalTimestamp);
+      }
+    }
+  }
+
+  /** Detects velocity drops from shots and logs how long the flywheel takes to recover. */
+  private void updateRecovery() {
+    double error = rampedGoalRadPerSec - inputs.shootVelocityRadPerSec;
+    if (!closedLoopActive || rampedGoalRadPerSec != goalRadPerSec) {
+      // Only track shots once the ramp has reached the goal
+      atGoal = false;
+      recovering = false;
+    } else if (recovering) {
+      if (Math.abs(error) < recoveryToleranceRadPerSec) {
+        recovering = false;
+        atGoal = true;
+        Logger.recordOutput(
+            "Shooter/RecoveryTimeSeconds", Timer.getFPGATimestamp() - shotDropTimestamp);
+      }
+    } else if (atGoal && error > shotDropThresholdRadPerSec) {
+      recovering = true;
+      shotDropTimestamp = Timer.getFPGATimestamp();
+      shotCount++;
+    } else {
+      atGoal = Math.abs(error) < recoveryToleranceRadPerSec;
+    }
+    Logger.recordOutput("Shooter/AtGoal", atGoal);
+    Logger.recordOutput("Shooter/Recovering", recovering);
+    Logger.recordOutput("Shooter/ShotCount", shotCount);
+  }
+
+  /** Runs the flywheel at a velocity using the configured control mode. Call once per cycle. */
   public void shoot(double velocityRadPerSec) {
-    SlewRateLimiter ramp = new SlewRateLimiter(100);
-    double rampedTarget = ramp.calculate(velocityRadPerSec);
-    io.setShootVelocity(rampedTarget, feedforward.calculate(velocityRadPerSec));
+    double measured = inputs.shootVelocityRadPerSec;
+    if (!closedLoopActive) {
+      // Start from the current state
+      ramp.reset(measured);
+      loop.reset(VecBuilder.fill(measured));
+      plantFeedforward.reset(VecBuilder.fill(measured));
+      rampedGoalRadPerSec = measured;
+      closedLoopActive = true;
+    }
+    goalRadPerSec = velocityRadPerSec;
+    double lastRampedGoal = rampedGoalRadPerSec;
+    rampedGoalRadPerSec = ramp.calculate(velocityRadPerSec);
+    Logger.recordOutput("Shooter/GoalRadPerSec", goalRadPerSec);
+    Logger.recordOutput("Shooter/RampedGoalRadPerSec", rampedGoalRadPerSec);
+
+    switch (shootControlMode) {
+      case SPARK_PID:
+        io.setShootVelocity(rampedGoalRadPerSec, feedforward.calculate(rampedGoalRadPerSec));
+        break;
+
+      case RIO_STATE_SPACE:
+        loop.setNextR(VecBuilder.fill(rampedGoalRadPerSec));
+        loop.correct(VecBuilder.fill(measured));
+        loop.predict(shootRioPeriodSeconds);
+        io.setShootOpenLoop(loop.getU(0));
+        Logger.recordOutput("Shooter/EstimatedVelocityRadPerSec", loop.getXHat(0));
+        break;
+
+      case SPARK_STATE_SPACE:
+        double feedforwardVolts =
+            plantFeedforward
+                .calculate(VecBuilder.fill(lastRampedGoal), VecBuilder.fill(rampedGoalRadPerSec))
+                .get(0, 0);
+        io.setShootVelocity(rampedGoalRadPerSec, feedforwardVolts);
+        break;
+    }
   }
 
   public void shoot() {
@@ -51,26 +198,34 @@ public class Shooter extends SubsystemBase {
   }
 
   public void intake() {
-    io.setShootOpenLoop(-3.0);
+    setShootOpenLoop(-3.0);
     io.setFeedOpenLoop(-3.0);
   }
 
   public void eject() {
-    io.setShootOpenLoop(3.0);
+    setShootOpenLoop(3.0);
     io.setFeedOpenLoop(3.0);
   }
 
   public void stop() {
-    io.setShootOpenLoop(0.0);
+    setShootOpenLoop(0.0);
     io.setFeedOpenLoop(0.0);
   }
 
   public void stopShoot() {
-    io.setShootOpenLoop(0.0);
+    setShootOpenLoop(0.0);
   }
 
   public void runVoltageShooter(Voltage voltage) {
-    io.setShootOpenLoop(voltage.in(Volts));
+    setShootOpenLoop(voltage.in(Volts));
+  }
+
+  /** Runs the flywheel open loop, ending closed loop control. */
+  private void setShootOpenLoop(double volts) {
+    closedLoopActive = false;
+    goalRadPerSec = 0.0;
+    rampedGoalRadPerSec = 0.0;
+    io.setShootOpenLoop(volts);
   }
 
   public void stopFeed() {
@@ -81,10 +236,25 @@ public class Shooter extends SubsystemBase {
     return inputs.noteDetected;
   }
 
+  /** Returns the FPGA timestamp when the last note arrived, or NaN if none has. */
+  public double getNoteArrivalTimestamp() {
+    return noteArrivalTimestamp;
+  }
+
+  /** Returns the FPGA timestamp when the last note left, or NaN if none has. */
+  public double getNoteDepartureTimestamp() {
+    return noteDepartureTimestamp;
+  }
+
   public double getShootVelocity() {
     return shootVelocity.get();
   }
 
+  /** Returns the closed loop goal minus the measured velocity, or NaN in open loop. */
+  public double getShootVelocityError() {
+    return closedLoopActive ? goalRadPerSec - inputs.shootVelocityRadPerSec : Double.NaN;
+  }
+
   public Voltage getShooterVoltage() {
     return Voltage.ofBaseUnits(inputs.shootAppliedVolts, Volts);
   }
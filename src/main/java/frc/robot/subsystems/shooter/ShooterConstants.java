@@ -1,6 +1,9 @@
 package frc.robot.subsystems.shooter;
 
+import au.grapplerobotics.LaserCan;
 import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.util.Units;
+import frc.robot.util.ShotTable.Interpolation;
 
 public class ShooterConstants {
   public static final int feedId = 12;
@@ -25,10 +28,85 @@ public class ShooterConstants {
 
   public static final double simShootKp = 0.001;
 
+  // Flywheel velocity control
+  public static enum ShootControlMode {
+    /** P-only Spark velocity control with a feedforward, as tuned above. */
+    SPARK_PID,
+    /** LQR and Kalman filter on the roboRIO, sending voltages. */
+    RIO_STATE_SPACE,
+    /** LQR gains precomputed for the Spark's 1 kHz loop, with a plant-inversion feedforward. */
+    SPARK_STATE_SPACE
+  }
+
+  public static final ShootControlMode shootControlMode = ShootControlMode.RIO_STATE_SPACE;
+  public static final double shootRampRate = 1000.0; // Rad/sec^2
+  public static final double shootLqrVelocityTolerance = 8.0; // Rad/sec
+  public static final double shootLqrMaxVolts = 12.0;
+  public static final double shootModelStdDev = 3.0; // Rad/sec
+  public static final double shootEncoderStdDev = 0.5; // Rad/sec
+  public static final double shootMeasurementDelaySeconds = 0.025; // Spark velocity filtering
+  public static final double shootRioPeriodSeconds = 0.02;
+  public static final double shootSparkPeriodSeconds = 0.001;
+
+  // Shot recovery detection
+  public static final double shotDropThresholdRadPerSec = 25.0;
+  public static final double recoveryToleranceRadPerSec = 10.0;
+
+  // Shot readiness
+  public static final double readinessFlywheelToleranceRadPerSec = 10.0;
+  public static final double readinessHeadingToleranceRadians = 0.02;
+  public static final double readinessLinearSpeedToleranceMetersPerSec = 3.0;
+  public static final double readinessMinPoseConfidence = 0.5;
+  public static final double readinessDebounceSeconds = 0.06;
+  public static final double readinessRateTimeConstantSeconds = 0.05;
+  public static final double feedLeadSeconds = 0.08; // Feeder command to note leaving the flywheel
+
   public static final DCMotor shootMotorGearbox = DCMotor.getNEO(1);
   public static final DCMotor feedMotorGearbox = DCMotor.getNEO(1);
 
   public static final double dcMotorMOI = 0.00351;
 
-  public static final double detectedTheshold = 10.0;
+  public static final double detectedTheshold = 10.0; // Millimeters
+
+  // LaserCAN sampling
+  public static final LaserCan.TimingBudget laserCanTimingBudget =
+      LaserCan.TimingBudget.TIMING_BUDGET_20MS;
+  public static final double laserCanSamplePeriodSeconds = 0.005;
+  public static final double laserCanReleaseThresholdMm = 20.0;
+  public static final int laserCanDebounceMeasurements = 2; // New measurements, one per budget
+
+  // Pre-spin while holding a note
+  public static final boolean usePreSpin = true;
+  public static final double preSpinLookaheadSeconds = 0.75;
+  public static final double preSpinStartDistanceMeters = 6.0; // Begin spinning inside this
+  public static final double preSpinFullDistanceMeters = 4.0; // Full shot speed inside this
+  public static final double preSpinCurrentBudgetAmps = 30.0;
+  public static final double preSpinMinBatteryVolts = 9.5;
+  public static final double preSpinFullBatteryVolts = 11.5;
+  public static final double preSpinCoastMarginRadPerSec = 10.0; // Coast when this far above goal
+
+  // Shot recording, relative to the operating directory
+  public static final String shotLogDirectory = "shots";
+  public static final long shotLogMaxFileBytes = 1_000_000;
+  public static final int shotLogQueueCapacity = 64;
+  public static final int shotLogSyncBatchSize = 8;
+  public static final double shotLogSyncIntervalSeconds = 1.0;
+
+  // Note flight, estimated until measured on the field
+  public static final double flywheelRadiusMeters = Units.inchesToMeters(2.0);
+  public static final double noteExitSpeedFactor = 0.35; // Note speed over flywheel surface speed
+  public static final double noteLaunchHeightMeters = 0.5;
+  public static final double noteLaunchPitchRadians = Units.degreesToRadians(60.0);
+  public static final double noteDragFactor = 0.5 * 1.2 * 1.0 * 0.018 / 0.235; // 0.5 rho Cd A / m
+  public static final double targetHeightMeters = 1.5;
+  public static final double targetRadiusMeters = 0.5; // Less the note's clearance
+  public static final double noteSimTimeStepSeconds = 0.005;
+  public static final double simFeedExitSeconds = 0.1; // Feeding time before the note leaves
+
+  public static final Interpolation shotTableInterpolation = Interpolation.MONOTONE_CUBIC;
+
+  public static final boolean useShotSolver = true; // Grid lead angle when it fails to converge
+  public static final int shotSolverMaxIterations = 8;
+  public static final double shotSolverToleranceMeters = 0.01;
+  public static final double shotSolverVelocityFactor = 1.0; // Tuned scale on robot velocity
 }
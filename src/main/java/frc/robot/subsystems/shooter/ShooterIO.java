@@ -19,6 +19,8 @@ public interface ShooterIO {
     public boolean laserCanConnected;
     public boolean noteDetected;
     public double laserCanDistance;
+    public double[] noteArrivalTimestamps = new double[] {};
+    public double[] noteDepartureTimestamps = new double[] {};
   }
 
   public default void updateInputs(ShooterIOInputs inputs) {}
@@ -30,4 +32,7 @@ public interface ShooterIO {
   public default void setShootVelocity(double velocityRadPerSec) {}
 
   public default void setShootVelocity(double velocityRadPerSec, double feedforward) {}
+
+  /** Sets the proportional gain of the shooter velocity loop, in volts per rad/sec. */
+  public default void configureShootGains(double kP) {}
 }
@@ -6,10 +6,12 @@ import static frc.robot.subsystems.shooter.ShooterConstants.feedMotorGearbox;
 import static frc.robot.subsystems.shooter.ShooterConstants.shootKd;
 import static frc.robot.subsystems.shooter.ShooterConstants.shootKp;
 import static frc.robot.subsystems.shooter.ShooterConstants.shootMotorGearbox;
+import static frc.robot.subsystems.shooter.ShooterConstants.simFeedExitSeconds;
 
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.simulation.DCMotorSim;
 import org.littletonrobotics.junction.networktables.LoggedNetworkBoolean;
 
@@ -20,6 +22,8 @@ public class ShooterIOSim implements ShooterIO {
 
   private final LoggedNetworkBoolean noteDetected =
       new LoggedNetworkBoolean("Tuning/Shooter/SimNotedDetected", false);
+  private boolean lastNoteDetected = false;
+  private double feedStartTimestamp = 0.0;
   private boolean feedRunningForward = false;
   private boolean feedRunningBackward = false;
 
@@ -52,7 +56,21 @@ public class ShooterIOSim implements ShooterIO {
     inputs.feedCurrentAmps = feedMotor.getCurrentDrawAmps();
     inputs.shootCurrentAmps = shootMotor.getCurrentDrawAmps();
 
+    // Feeding forward pushes the note out of the shooter
+    if (noteDetected.get() && feedMotor.getInputVoltage() > 0.0) {
+      if (Timer.getFPGATimestamp() - feedStartTimestamp >= simFeedExitSeconds) {
+        noteDetected.set(false);
+      }
+    } else {
+      feedStartTimestamp = Timer.getFPGATimestamp();
+    }
+
     inputs.noteDetected = noteDetected.get();
+    boolean edge = inputs.noteDetected != lastNoteDetected;
+    double[] edgeTimestamps = edge ? new double[] {Timer.getFPGATimestamp()} : new double[] {};
+    inputs.noteArrivalTimestamps = inputs.noteDetected ? edgeTimestamps : new double[] {};
+    inputs.noteDepartureTimestamps = inputs.noteDetected ? new double[] {} : edgeTimestamps;
+    lastNoteDetected = inputs.noteDetected;
   }
 
   public void setFeedOpenLoop(double output) {
@@ -67,6 +85,12 @@ public class ShooterIOSim implements ShooterIO {
   // setShootVelocity(velocityRadPerSec, 0.0);
   // }
 
+  @Override
+  public void configureShootGains(double kP) {
+    // Output is multiplied by 12.0 to match the Spark's duty cycle gains
+    shootController.setP(kP / 12.0);
+  }
+
   public void setShootVelocity(double velocityRadPerSec, double feedforward) {
     // Multiply by 12.0 to match spark max pid
     shootMotor.setInputVoltage(
@@ -4,8 +4,6 @@ import static frc.robot.subsystems.shooter.ShooterConstants.*;
 
 import au.grapplerobotics.ConfigurationFailedException;
 import au.grapplerobotics.LaserCan;
-import au.grapplerobotics.interfaces.LaserCanInterface;
-import au.grapplerobotics.interfaces.LaserCanInterface.Measurement;
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.spark.ClosedLoopSlot;
 import com.revrobotics.spark.SparkBase;
@@ -24,6 +22,7 @@ public class ShooterIOSpark implements ShooterIO {
   private final SparkBase shootSpark;
 
   private final LaserCan laserCan;
+  private final LaserCanSampler laserCanSampler;
 
   private final RelativeEncoder shootEncoder;
 
@@ -63,10 +62,12 @@ public class ShooterIOSpark implements ShooterIO {
     try {
       laserCan.setRangingMode(LaserCan.RangingMode.SHORT);
       laserCan.setRegionOfInterest(new LaserCan.RegionOfInterest(8, 8, 16, 16));
-      laserCan.setTimingBudget(LaserCan.TimingBudget.TIMING_BUDGET_33MS);
+      laserCan.setTimingBudget(laserCanTimingBudget);
     } catch (ConfigurationFailedException e) {
       System.out.println("Configuration Failed! " + e);
     }
+    laserCanSampler = new LaserCanSampler(laserCan);
+    laserCanSampler.start();
   }
 
   @Override
@@ -83,13 +84,7 @@ public class ShooterIOSpark implements ShooterIO {
     inputs.feedCurrentAmps = feedSpark.getOutputCurrent();
     inputs.shootCurrentAmps = shootSpark.getOutputCurrent();
 
-    Measurement measurement = laserCan.getMeasurement();
-
-    if (measurement.status == LaserCanInterface.LASERCAN_STATUS_VALID_MEASUREMENT) {
-      inputs.noteDetected = measurement.distance_mm < detectedTheshold;
-    } else {
-      inputs.noteDetected = false;
-    }
+    laserCanSampler.updateInputs(inputs);
   }
 
   public void setFeedOpenLoop(double output) {
@@ -104,6 +99,15 @@ public class ShooterIOSpark implements ShooterIO {
     setShootVelocity(velocityRadPerSec, 0.0);
   }
 
+  @Override
+  public void configureShootGains(double kP) {
+    // Gains are in duty cycle, which is 12 volts with voltage compensation
+    var shootConfig = new SparkMaxConfig();
+    shootConfig.closedLoop.pidf(kP / 12.0, 0.0, 0.0, 0.0);
+    shootSpark.configure(
+        shootConfig, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+  }
+
   public void setShootVelocity(double velocityRadPerSec, double feedforward) {
     shootController.setReference(
         velocityRadPerSec,
@@ -0,0 +1,87 @@
+package frc.robot.subsystems.vision;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.photonvision.targeting.PhotonPipelineResult;
+
+/**
+ * Limits how many unread camera results are processed each cycle.
+ *
+ * <p>Results older than the pose estimator's history window are dropped because they can no longer
+ * be applied. If more fresh results remain than the per-cycle limit, the newest results are kept,
+ * and the newest multitag result is swapped in for the oldest kept result if none of the kept
+ * results are multitag.
+ */
+public class CameraBacklogPolicy {
+  private final int maxResultsPerCycle;
+  private final double maxResultAgeSeconds;
+  private final List<PhotonPipelineResult> selected;
+  private int droppedCount = 0;
+
+  /**
+   * Creates a new CameraBacklogPolicy.
+   *
+   * @param maxResultsPerCycle The maximum number of results to process each cycle.
+   * @param maxResultAgeSeconds The maximum age of a result before it is dropped.
+   */
+  public CameraBacklogPolicy(int maxResultsPerCycle, double maxResultAgeSeconds) {
+    this.maxResultsPerCycle = Math.max(1, maxResultsPerCycle);
+    this.maxResultAgeSeconds = maxResultAgeSeconds;
+    selected = new ArrayList<>(this.maxResultsPerCycle);
+  }
+
+  /**
+   * Selects the results to process this cycle.
+   *
+   * @param results The unread results, ordered from oldest to newest.
+   * @param timestampSeconds The current timestamp, in the same timebase as the results.
+   * @return The selected results, ordered from oldest to newest. The list is reused on the next
+   *     call.
+   */
+  public List<PhotonPipelineResult> select(
+      List<PhotonPipelineResult> results, double timestampSeconds) {
+    selected.clear();
+
+    // Skip results that are too old to be inserted into the estimator
+    int firstFresh = 0;
+    while (firstFresh < results.size()
+        && timestampSeconds - results.get(firstFresh).getTimestampSeconds()
+            > maxResultAgeSeconds) {
+      firstFresh++;
+    }
+
+    // Keep the newest results up to the limit
+    int firstKept = Math.max(firstFresh, results.size() - maxResultsPerCycle);
+    boolean keptMultitag = false;
+    for (int i = firstKept; i < results.size(); i++) {
+      keptMultitag |= results.get(i).multitagResult.isPresent();
+    }
+
+    // Prefer the newest multitag result over the oldest kept result
+    if (!keptMultitag) {
+      for (int i = firstKept - 1; i >= firstFresh; i--) {
+        if (results.get(i).multitagResult.isPresent()) {
+          selected.add(results.get(i));
+          firstKept++;
+          break;
+        }
+      }
+    }
+    for (int i = firstKept; i < results.size(); i++) {
+      selected.add(results.get(i));
+    }
+
+    droppedCount = results.size() - selected.size();
+    return selected;
+  }
+
+  /** Returns the number of results selected by the last call to {@link #select}. */
+  public int getProcessedCount() {
+    return selected.size();
+  }
+
+  /** Returns the number of results dropped by the last call to {@link #select}. */
+  public int getDroppedCount() {
+    return droppedCount;
+  }
+}
@@ -0,0 +1,302 @@
+package frc.robot.subsystems.vision;
+
+import static frc.robot.subsystems.vision.VisionConstants.aprilTagLayout;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform3d;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Solves a single planar robot pose from tag bearings observed by several cameras.
+ *
+ * <p>Each observation is the yaw and pitch from a camera to the center of a known tag. Using the
+ * fixed robot-to-camera transforms, Gauss-Newton minimizes the bearing residuals over the robot's
+ * x, y and heading. Two single-tag views from different cameras constrain the pose like a
+ * multi-tag solve, without the ambiguity of each individual single-tag solve.
+ */
+public class JointPoseSolver {
+  private static final int maxIterations = 10;
+  private static final double convergedStep = 1.0e-6;
+  private static final double jacobianStep = 1.0e-6;
+
+  // Camera offsets and rotation matrices (row-major), in the robot frame
+  private final double[][] cameraOffsets;
+  private final double[][] cameraRotations;
+
+  // Observations
+  private int size = 0;
+  private int[] cameraIndices = new int[8];
+  private int[] tagIds = new int[8];
+  private double[] tagX = new double[8];
+  private double[] tagY = new double[8];
+  private double[] tagZ = new double[8];
+  private double[] yaws = new double[8];
+  private double[] pitches = new double[8];
+  private final BitSet distinctTags = new BitSet();
+
+  // Solver scratch and results
+  private double[] residuals = new double[16];
+  private double[] trialResiduals = new double[16];
+  private double[] jacobian = new double[48]; // Row-major, one row per residual
+  private double solvedX = 0.0;
+  private double solvedY = 0.0;
+  private double solvedTheta = 0.0;
+  private double rmsResidual = Double.POSITIVE_INFINITY;
+
+  /**
+   * Creates a new JointPoseSolver.
+   *
+   * @param robotToCameras The transform from the robot to each camera, by camera index.
+   */
+  public JointPoseSolver(Transform3d[] robotToCameras) {
+    cameraOffsets = new double[robotToCameras.length][];
+    cameraRotations = new double[robotToCameras.length][];
+    for (int i = 0; i < robotToCameras.length; i++) {
+      var translation = robotToCameras[i].getTranslation();
+      cameraOffsets[i] = new double[] {translation.getX(), translation.getY(), translation.getZ()};
+      cameraRotations[i] = robotToCameras[i].getRotation().toMatrix().getData();
+    }
+  }
+
+  /** Removes all observations. */
+  public void clear() {
+    size = 0;
+    distinctTags.clear();
+  }
+
+  /**
+   * Adds a tag bearing observation. Observations of tags missing from the layout are ignored.
+   *
+   * @param cameraIndex The index of the observing camera.
+   * @param tagId The observed tag ID.
+   * @param yawRadians The bearing yaw in the camera frame, positive to the left.
+   * @param pitchRadians The bearing pitch in the camera frame, positive upward.
+   */
+  public void addObservation(int cameraIndex, int tagId, double yawRadians, double pitchRadians) {
+    var tagPose = aprilTagLayout.getTagPose(tagId);
+    if (tagPose.isEmpty()) {
+      return;
+    }
+    if (size == tagIds.length) {
+      int capacity = size * 2;
+      cameraIndices = Arrays.copyOf(cameraIndices, capacity);
+      tagIds = Arrays.copyOf(tagIds, capacity);
+      tagX = Arrays.copyOf(tagX, capacity);
+      tagY = Arrays.copyOf(tagY, capacity);
+      tagZ = Arrays.copyOf(tagZ, capacity);
+      yaws = Arrays.copyOf(yaws, capacity);
+      pitches = Arrays.copyOf(pitches, capacity);
+      residuals = new double[capacity * 2];
+      trialResiduals = new double[capacity * 2];
+      jacobian = new double[capacity * 6];
+    }
+    cameraIndices[size] = cameraIndex;
+    tagIds[size] = tagId;
+    tagX[size] = tagPose.get().getX();
+    tagY[size] = tagPose.get().getY();
+    tagZ[size] = tagPose.get().getZ();
+    yaws[size] = yawRadians;
+    pitches[size] = pitchRadians;
+    distinctTags.set(tagId);
+    size++;
+  }
+
+  /** Returns the number of observations. */
+  public int size() {
+    return size;
+  }
+
+  /** Returns the number of distinct tags observed. */
+  public int getTagCount() {
+    return distinctTags.cardinality();
+  }
+
+  /**
+   * Solves for the robot pose, starting from the given guess.
+   *
+   * @return Whether the solve converged to a pose with all tags in front of their cameras.
+   */
+  public boolean solve(Pose2d initialGuess) {
+    if (size * 2 < 3) {
+      return false;
+    }
+    double x = initialGuess.getX();
+    double y = initialGuess.getY();
+    double theta = initialGuess.getRotation().getRadians();
+    double cost = computeResiduals(x, y, theta, residuals);
+    if (Double.isInfinite(cost)) {
+      return false;
+    }
+
+    for (int iteration = 0; iteration < maxIterations; iteration++) {
+      // Build normal equations with a numerical Jacobian
+      double[] normal = new double[9];
+      double[] gradient = new double[3];
+      for (int parameter = 0; parameter < 3; parameter++) {
+        double perturbedCost =
+            computeResiduals(
+                x + (parameter == 0 ? jacobianStep : 0.0),
+                y + (parameter == 1 ? jacobianStep : 0.0),
+                theta + (parameter == 2 ? jacobianStep : 0.0),
+                trialResiduals);
+        if (Double.isInfinite(perturbedCost)) {
+          return false;
+        }
+        for (int row = 0; row < size * 2; row++) {
+          jacobian[row * 3 + parameter] = (trialResiduals[row] - residuals[row]) / jacobianStep;
+        }
+      }
+      for (int row = 0; row < size * 2; row++) {
+        for (int i = 0; i < 3; i++) {
+          gradient[i] += jacobian[row * 3 + i] * residuals[row];
+          for (int j = 0; j < 3; j++) {
+            normal[i * 3 + j] += jacobian[row * 3 + i] * jacobian[row * 3 + j];
+          }
+        }
+      }
+
+      // Solve for the Gauss-Newton step, which is subtracted from the pose
+      double[] step = solve3x3(normal, gradient);
+      if (step == null) {
+        return false;
+      }
+
+      // Halve the step until the cost decreases
+      double scale = 1.0;
+      double trialCost = Double.POSITIVE_INFINITY;
+      while (scale > 1.0e-3) {
+        trialCost =
+            computeResiduals(
+                x - scale * step[0], y - scale * step[1], theta - scale * step[2], trialResiduals);
+        if (trialCost < cost) {
+          break;
+        }
+        scale *= 0.5;
+      }
+      if (trialCost >= cost) {
+        break; // No further improvement
+      }
+      x -= scale * step[0];
+      y -= scale * step[1];
+      theta -= scale * step[2];
+      cost = trialCost;
+      double[] swap = residuals;
+      residuals = trialResiduals;
+      trialResiduals = swap;
+      if (Math.abs(scale * step[0]) + Math.abs(scale * step[1]) + Math.abs(scale * step[2])
+          < convergedStep) {
+        break;
+      }
+    }
+
+    solvedX = x;
+    solvedY = y;
+    solvedTheta = MathUtil.angleModulus(theta);
+    rmsResidual = Math.sqrt(cost / (size * 2));
+    return true;
+  }
+
+  /** Returns the solved robot pose. */
+  public Pose3d getPose() {
+    return new Pose3d(new Pose2d(solvedX, solvedY, new Rotation2d(solvedTheta)));
+  }
+
+  /** Returns the RMS bearing residual of the last solve in radians. */
+  public double getRmsResidual() {
+    return rmsResidual;
+  }
+
+  /** Returns the closest observed tag to the solved pose, or -1 if there are no observations. */
+  public int getClosestTagId() {
+    int closestTagId = -1;
+    double closestDistance = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < size; i++) {
+      double distance = Math.hypot(tagX[i] - solvedX, tagY[i] - solvedY);
+      if (distance < closestDistance) {
+        closestDistance = distance;
+        closestTagId = tagIds[i];
+      }
+    }
+    return closestTagId;
+  }
+
+  /** Returns the average 3D distance from the observing cameras to the tags. */
+  public double getAverageTagDistance() {
+    double cos = Math.cos(solvedTheta);
+    double sin = Math.sin(solvedTheta);
+    double total = 0.0;
+    for (int i = 0; i < size; i++) {
+      double[] offset = cameraOffsets[cameraIndices[i]];
+      double cameraX = solvedX + cos * offset[0] - sin * offset[1];
+      double cameraY = solvedY + sin * offset[0] + cos * offset[1];
+      double dx = tagX[i] - cameraX;
+      double dy = tagY[i] - cameraY;
+      double dz = tagZ[i] - offset[2];
+      total += Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+    return size > 0 ? total / size : 0.0;
+  }
+
+  /**
+   * Fills the bearing residuals (measured minus predicted, yaw then pitch) for a robot pose.
+   *
+   * @return The sum of squared residuals, or infinity if a tag is behind its camera.
+   */
+  private double computeResiduals(double x, double y, double theta, double[] output) {
+    double cos = Math.cos(theta);
+    double sin = Math.sin(theta);
+    double cost = 0.0;
+    for (int i = 0; i < size; i++) {
+      double[] offset = cameraOffsets[cameraIndices[i]];
+      double[] rotation = cameraRotations[cameraIndices[i]];
+
+      // Tag position in the robot frame, relative to the camera
+      double dx = tagX[i] - x;
+      double dy = tagY[i] - y;
+      double vx = cos * dx + sin * dy - offset[0];
+      double vy = -sin * dx + cos * dy - offset[1];
+      double vz = tagZ[i] - offset[2];
+
+      // Rotate into the camera frame (transpose of the camera rotation)
+      double px = rotation[0] * vx + rotation[3] * vy + rotation[6] * vz;
+      double py = rotation[1] * vx + rotation[4] * vy + rotation[7] * vz;
+      double pz = rotation[2] * vx + rotation[5] * vy + rotation[8] * vz;
+      if (px <= 0.0) {
+        return Double.POSITIVE_INFINITY;
+      }
+
+      double yawResidual = MathUtil.angleModulus(yaws[i] - Math.atan2(py, px));
+      double pitchResidual = MathUtil.angleModulus(pitches[i] - Math.atan2(pz, px));
+      output[i * 2] = yawResidual;
+      output[i * 2 + 1] = pitchResidual;
+      cost += yawResidual * yawResidual + pitchResidual * pitchResidual;
+    }
+    return cost;
+  }
+
+  /** Solves a symmetric 3x3 system, returning null if it is singular. */
+  private static double[] solve3x3(double[] a, double[] b) {
+    double c00 = a[4] * a[8] - a[5] * a[7];
+    double c01 = a[5] * a[6] - a[3] * a[8];
+    double c02 = a[3] * a[7] - a[4] * a[6];
+    double determinant = a[0] * c00 + a[1] * c01 + a[2] * c02;
+    if (Math.abs(determinant) < 1.0e-12) {
+      return null;
+    }
+    double c10 = a[2] * a[7] - a[1] * a[8];
+    double c11 = a[0] * a[8] - a[2] * a[6];
+    double c12 = a[1] * a[6] - a[0] * a[7];
+    double c20 = a[1] * a[5] - a[2] * a[4];
+    double c21 = a[2] * a[3] - a[0] * a[5];
+    double c22 = a[0] * a[4] - a[1] * a[3];
+    return new double[] {
+      (c00 * b[0] + c10 * b[1] + c20 * b[2]) / determinant,
+      (c01 * b[0] + c11 * b[1] + c21 * b[2]) / determinant,
+      (c02 * b[0] + c12 * b[1] + c22 * b[2]) / determinant
+    };
+  }
+}
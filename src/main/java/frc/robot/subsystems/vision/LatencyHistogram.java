@@ -0,0 +1,80 @@
+package frc.robot.subsystems.vision;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-width histogram of latency samples, with an overflow bin for samples past the last bin.
+ * Recording is constant time and does not allocate.
+ */
+public class LatencyHistogram {
+  private final double binWidthSeconds;
+  private final long[] counts; // Last bin is overflow
+  private long totalCount = 0;
+  private double maxSeconds = 0.0;
+
+  /**
+   * Creates a new LatencyHistogram.
+   *
+   * @param binWidthSeconds The width of each bin.
+   * @param binCount The number of bins, not including the overflow bin.
+   */
+  public LatencyHistogram(double binWidthSeconds, int binCount) {
+    this.binWidthSeconds = binWidthSeconds;
+    counts = new long[binCount + 1];
+  }
+
+  /** Records a latency sample. Negative samples are counted as zero and NaN is ignored. */
+  public void record(double latencySeconds) {
+    if (Double.isNaN(latencySeconds)) {
+      return;
+    }
+    latencySeconds = Math.max(latencySeconds, 0.0);
+    int bin = (int) Math.min(latencySeconds / binWidthSeconds, counts.length - 1);
+    counts[bin]++;
+    totalCount++;
+    maxSeconds = Math.max(maxSeconds, latencySeconds);
+  }
+
+  /** Clears all samples. */
+  public void reset() {
+    Arrays.fill(counts, 0);
+    totalCount = 0;
+    maxSeconds = 0.0;
+  }
+
+  /** Returns the number of recorded samples. */
+  public long getCount() {
+    return totalCount;
+  }
+
+  /** Returns the largest recorded sample. */
+  public double getMax() {
+    return maxSeconds;
+  }
+
+  /**
+   * Returns the upper edge of the bin containing the given percentile, or the largest sample if
+   * it falls in the overflow bin.
+   *
+   * @param percentile The percentile, from 0 to 1.
+   */
+  public double getPercentile(double percentile) {
+    if (totalCount == 0) {
+      return 0.0;
+    }
+    long threshold = (long) Math.ceil(percentile * totalCount);
+    long cumulative = 0;
+    for (int bin = 0; bin < counts.length - 1; bin++) {
+      cumulative += counts[bin];
+      if (cumulative >= threshold) {
+        return Math.min((bin + 1) * binWidthSeconds, maxSeconds);
+      }
+    }
+    return maxSeconds;
+  }
+
+  /** Returns a copy of the bin counts, with the overflow bin last. */
+  public long[] getCounts() {
+    return Arrays.copyOf(counts, counts.length);
+  }
+}
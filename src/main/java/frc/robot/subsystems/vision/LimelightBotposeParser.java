@@ -0,0 +1,169 @@
+package frc.robot.subsystems.vision;
+
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
+import frc.robot.subsystems.vision.VisionIO.PoseObservation;
+import frc.robot.subsystems.vision.VisionIO.PoseObservationType;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Parses raw Limelight botpose arrays into reusable struct-of-arrays buffers.
+ *
+ * <p>Each botpose array is read exactly once. Pose fields are copied into primitive columns and tag
+ * IDs are collected into a bitset, so steady-state parsing does not allocate. Record objects are
+ * only created when the buffers are materialized into the inputs object for logging.
+ */
+public class LimelightBotposeParser {
+  private static final int initialCapacity = 8;
+
+  // Botpose array layout (see Limelight NetworkTables API)
+  private static final int latencyIndex = 6;
+  private static final int tagCountIndex = 7;
+  private static final int averageTagDistanceIndex = 9;
+  private static final int firstTagIdIndex = 11;
+  private static final int firstTagAmbiguityIndex = 17;
+  private static final int valuesPerTag = 7;
+
+  private static final PoseObservation[] emptyObservations = new PoseObservation[0];
+  private static final int[] emptyTagIds = new int[0];
+
+  private int size = 0;
+  private double[] timestamps = new double[initialCapacity];
+  private double[] publishTimestamps = new double[initialCapacity];
+  private double[] receiveTimestamps = new double[initialCapacity];
+  private double[] x = new double[initialCapacity];
+  private double[] y = new double[initialCapacity];
+  private double[] z = new double[initialCapacity];
+  private double[] roll = new double[initialCapacity];
+  private double[] pitch = new double[initialCapacity];
+  private double[] yaw = new double[initialCapacity];
+  private double[] ambiguities = new double[initialCapacity];
+  private int[] tagCounts = new int[initialCapacity];
+  private int[] primaryTagIds = new int[initialCapacity];
+  private double[] averageTagDistances = new double[initialCapacity];
+  private PoseObservationType[] types = new PoseObservationType[initialCapacity];
+  private final BitSet tagIds = new BitSet(32);
+
+  /** Clears all buffered observations and tag IDs, keeping the allocated storage. */
+  public void clear() {
+    size = 0;
+    tagIds.clear();
+  }
+
+  /**
+   * Parses a batch of queued botpose samples into the buffers.
+   *
+   * @param samples The samples returned by {@code readQueue()}.
+   * @param type The observation type of the topic the samples were read from.
+   */
+  public void parse(TimestampedDoubleArray[] samples, PoseObservationType type) {
+    for (var sample : samples) {
+      double[] value = sample.value;
+      if (value.length <= averageTagDistanceIndex) continue;
+      ensureCapacity(size + 1);
+
+      // Timestamp, based on the publish time and latency. NetworkTables already converts the
+      // Limelight's publish time to the roboRIO timebase.
+      publishTimestamps[size] = sample.serverTime * 1.0e-6;
+      receiveTimestamps[size] = sample.timestamp * 1.0e-6;
+      timestamps[size] = publishTimestamps[size] - value[latencyIndex] * 1.0e-3;
+
+      // 3D pose estimate
+      x[size] = value[0];
+      y[size] = value[1];
+      z[size] = value[2];
+      roll[size] = Units.degreesToRadians(value[3]);
+      pitch[size] = Units.degreesToRadians(value[4]);
+      yaw[size] = Units.degreesToRadians(value[5]);
+
+      // Ambiguity, using only the first tag because ambiguity isn't applicable for multitag
+      // (MegaTag 2 poses are already disambiguated)
+      ambiguities[size] =
+          type == PoseObservationType.MEGATAG_1 && value.length > firstTagAmbiguityIndex
+              ? value[firstTagAmbiguityIndex]
+              : 0.0;
+
+      tagCounts[size] = (int) value[tagCountIndex];
+      primaryTagIds[size] = value.length > firstTagIdIndex ? (int) value[firstTagIdIndex] : -1;
+      averageTagDistances[size] = value[averageTagDistanceIndex];
+      types[size] = type;
+      size++;
+
+      for (int i = firstTagIdIndex; i < value.length; i += valuesPerTag) {
+        int id = (int) value[i];
+        if (id >= 0) {
+          tagIds.set(id);
+        }
+      }
+    }
+  }
+
+  /** Returns the number of buffered observations. */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Materializes the buffered observations for logging.
+   *
+   * @param previous The array from the previous cycle, reused if it has the same length.
+   * @param inputsTimestamp The timestamp at which the inputs are being updated.
+   */
+  public PoseObservation[] toPoseObservations(PoseObservation[] previous, double inputsTimestamp) {
+    if (size == 0) {
+      return emptyObservations;
+    }
+    PoseObservation[] observations = previous.length == size ? previous : new PoseObservation[size];
+    for (int i = 0; i < size; i++) {
+      observations[i] =
+          new PoseObservation(
+              timestamps[i],
+              publishTimestamps[i],
+              receiveTimestamps[i],
+              inputsTimestamp,
+              new Pose3d(x[i], y[i], z[i], new Rotation3d(roll[i], pitch[i], yaw[i])),
+              ambiguities[i],
+              tagCounts[i],
+              primaryTagIds[i],
+              averageTagDistances[i],
+              types[i]);
+    }
+    return observations;
+  }
+
+  /** Materializes the buffered tag IDs for logging, in ascending order. */
+  public int[] toTagIds() {
+    int count = tagIds.cardinality();
+    if (count == 0) {
+      return emptyTagIds;
+    }
+    int[] ids = new int[count];
+    int i = 0;
+    for (int id = tagIds.nextSetBit(0); id >= 0; id = tagIds.nextSetBit(id + 1)) {
+      ids[i++] = id;
+    }
+    return ids;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= timestamps.length) return;
+    int newCapacity = Math.max(capacity, timestamps.length * 2);
+    timestamps = Arrays.copyOf(timestamps, newCapacity);
+    publishTimestamps = Arrays.copyOf(publishTimestamps, newCapacity);
+    receiveTimestamps = Arrays.copyOf(receiveTimestamps, newCapacity);
+    x = Arrays.copyOf(x, newCapacity);
+    y = Arrays.copyOf(y, newCapacity);
+    z = Arrays.copyOf(z, newCapacity);
+    roll = Arrays.copyOf(roll, newCapacity);
+    pitch = Arrays.copyOf(pitch, newCapacity);
+    yaw = Arrays.copyOf(yaw, newCapacity);
+    ambiguities = Arrays.copyOf(ambiguities, newCapacity);
+    tagCounts = Arrays.copyOf(tagCounts, newCapacity);
+    primaryTagIds = Arrays.copyOf(primaryTagIds, newCapacity);
+    averageTagDistances = Arrays.copyOf(averageTagDistances, newCapacity);
+    types = Arrays.copyOf(types, newCapacity);
+  }
+}
@@ -0,0 +1,101 @@
+package frc.robot.subsystems.vision;
+
+import static frc.robot.subsystems.vision.VisionConstants.*;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.RobotController;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Collects the MegaTag 2 orientation updates for every Limelight and publishes them with a single
+ * NetworkTables flush per cycle.
+ *
+ * <p>Updates are only sent when the heading has moved by more than {@link
+ * VisionConstants#orientationPublishThresholdDegrees}, or when the last update is older than {@link
+ * VisionConstants#orientationMaxPublishPeriod} so that a rebooted camera still receives a heading.
+ */
+public class LimelightOrientationPublisher {
+  /** Point in the robot loop at which orientation updates are published and flushed. */
+  public static enum FlushPoint {
+    /** Before the Limelight inputs are read in {@link Vision#periodic()}, after {@code Drive}. */
+    VISION_PERIODIC,
+
+    /** After the command scheduler has finished running for the cycle. */
+    END_OF_CYCLE
+  }
+
+  private final List<DoubleArrayPublisher> publishers = new ArrayList<>();
+  private final List<Supplier<Rotation2d>> rotationSuppliers = new ArrayList<>();
+  private final double[] orientation = new double[6]; // Yaw, yaw rate, pitch, pitch rate, ...
+  private double[] lastSentHeadings = new double[0];
+  private double[] lastSentTimestamps = new double[0];
+
+  private static LimelightOrientationPublisher instance = null;
+
+  public static LimelightOrientationPublisher getInstance() {
+    if (instance == null) {
+      instance = new LimelightOrientationPublisher();
+    }
+    return instance;
+  }
+
+  private LimelightOrientationPublisher() {}
+
+  /** Registers a Limelight "robot_orientation_set" publisher to be updated every cycle. */
+  public void register(DoubleArrayPublisher publisher, Supplier<Rotation2d> rotationSupplier) {
+    publishers.add(publisher);
+    rotationSuppliers.add(rotationSupplier);
+    lastSentHeadings = Arrays.copyOf(lastSentHeadings, publishers.size());
+    lastSentTimestamps = Arrays.copyOf(lastSentTimestamps, publishers.size());
+    lastSentHeadings[publishers.size() - 1] = Double.NaN;
+    lastSentTimestamps[publishers.size() - 1] = Double.NEGATIVE_INFINITY;
+  }
+
+  /**
+   * Publishes pending orientation updates and flushes once if any were sent. Does nothing unless
+   * the given point matches {@link VisionConstants#orientationFlushPoint}.
+   */
+  public void periodic(FlushPoint point) {
+    if (point != orientationFlushPoint || publishers.isEmpty()) {
+      return;
+    }
+
+    double timestamp = RobotController.getFPGATime() / 1.0e6;
+    int sentCount = 0;
+    for (int i = 0; i < publishers.size(); i++) {
+      double headingDegrees = rotationSuppliers.get(i).get().getDegrees();
+      double headingDelta =
+          MathUtil.inputModulus(headingDegrees - lastSentHeadings[i], -180.0, 180.0);
+      boolean headingChanged =
+          Double.isNaN(headingDelta) || Math.abs(headingDelta) > orientationPublishThresholdDegrees;
+      boolean expired = timestamp - lastSentTimestamps[i] > orientationMaxPublishPeriod;
+      if (headingChanged || expired) {
+        orientation[0] = headingDegrees;
+        publishers.get(i).set(orientation);
+        lastSentHeadings[i] = headingDegrees;
+        lastSentTimestamps[i] = timestamp;
+        sentCount++;
+      }
+    }
+
+    // Flush once for all cameras (increases network traffic but recommended by Limelight)
+    double flushMs = 0.0;
+    if (sentCount > 0) {
+      long flushStart = RobotController.getFPGATime();
+      NetworkTableInstance.getDefault().flush();
+      flushMs = (RobotController.getFPGATime() - flushStart) / 1000.0;
+    }
+
+    Logger.recordOutput("Vision/OrientationPublisher/UpdatesSent", sentCount);
+    Logger.recordOutput(
+        "Vision/OrientationPublisher/UpdatesSkipped", publishers.size() - sentCount);
+    Logger.recordOutput("Vision/OrientationPublisher/FlushMs", flushMs);
+  }
+}
@@ -0,0 +1,182 @@
+package frc.robot.subsystems.vision;
+
+import static frc.robot.subsystems.vision.VisionConstants.*;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.subsystems.vision.Vision.VisionConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Seeds the robot pose from vision while disabled, so the pose estimator doesn't have to converge
+ * from a wrong prior at the start of a match.
+ *
+ * <p>Wraps the vision consumer, forwarding every observation and recording those received while
+ * disabled. Once enough observations have arrived within the window, the pose supported by the
+ * most other observations is chosen as the consensus, and the pose is reset to the weighted mean of
+ * its inliers if they agree closely enough. This happens at most once, and only before the robot
+ * is first enabled, so the disabled gap between autonomous and teleop can't reset the pose.
+ */
+public class StartupLocalizer implements VisionConsumer {
+  private static final int capacity = 256;
+
+  private final VisionConsumer delegate;
+  private final Supplier<Rotation2d> rotationSupplier;
+  private final Consumer<Pose2d> poseReset;
+
+  // Ring buffer of observations received while disabled
+  private final double[] timestamps = new double[capacity];
+  private final double[] xs = new double[capacity];
+  private final double[] ys = new double[capacity];
+  private final double[] thetas = new double[capacity];
+  private final double[] linearWeights = new double[capacity];
+  private final double[] angularWeights = new double[capacity];
+  private int head = 0;
+  private int size = 0;
+  private boolean seeded = false;
+  private boolean finished = false;
+
+  /**
+   * Creates a new StartupLocalizer.
+   *
+   * @param delegate The consumer to forward all observations to.
+   * @param rotationSupplier Supplier for the current heading, kept if no observation has heading.
+   * @param poseReset Resets the robot pose.
+   */
+  public StartupLocalizer(
+      VisionConsumer delegate, Supplier<Rotation2d> rotationSupplier, Consumer<Pose2d> poseReset) {
+    this.delegate = delegate;
+    this.rotationSupplier = rotationSupplier;
+    this.poseReset = poseReset;
+  }
+
+  @Override
+  public void accept(
+      Pose2d visionRobotPoseMeters,
+      double timestampSeconds,
+      Matrix<N3, N1> visionMeasurementStdDevs) {
+    delegate.accept(visionRobotPoseMeters, timestampSeconds, visionMeasurementStdDevs);
+    if (!enableStartupLocalization || seeded || finished || !DriverStation.isDisabled()) {
+      return;
+    }
+
+    int index = (head + size) % capacity;
+    if (size == capacity) {
+      head = (head + 1) % capacity;
+    } else {
+      size++;
+    }
+    timestamps[index] = timestampSeconds;
+    xs[index] = visionRobotPoseMeters.getX();
+    ys[index] = visionRobotPoseMeters.getY();
+    thetas[index] = visionRobotPoseMeters.getRotation().getRadians();
+    linearWeights[index] = 1.0 / Math.pow(visionMeasurementStdDevs.get(0, 0), 2.0);
+    angularWeights[index] = 1.0 / Math.pow(visionMeasurementStdDevs.get(2, 0), 2.0);
+  }
+
+  /** Clears recorded observations and stops seeding for the rest of the boot. */
+  public void finish() {
+    head = 0;
+    size = 0;
+    finished = true;
+  }
+
+  /** Tries to seed the pose from the recorded observations. Call periodically while disabled. */
+  public void update() {
+    // Drop observations outside of the window
+    double cutoff = Timer.getFPGATimestamp() - startupWindowSeconds;
+    while (size > 0 && timestamps[head] < cutoff) {
+      head = (head + 1) % capacity;
+      size--;
+    }
+    Logger.recordOutput("Vision/StartupLocalizer/SampleCount", size);
+    Logger.recordOutput("Vision/StartupLocalizer/Seeded", seeded);
+    if (seeded || finished || size < startupMinSamples) {
+      return;
+    }
+
+    // Find the observation with the most inliers
+    int bestIndex = -1;
+    int bestInlierCount = 0;
+    for (int i = 0; i < size; i++) {
+      int inlierCount = countInliers((head + i) % capacity);
+      if (inlierCount > bestInlierCount) {
+        bestInlierCount = inlierCount;
+        bestIndex = (head + i) % capacity;
+      }
+    }
+    Logger.recordOutput("Vision/StartupLocalizer/InlierCount", bestInlierCount);
+    if (bestInlierCount < startupMinSamples
+        || bestInlierCount < startupMinInlierFraction * size) {
+      return;
+    }
+
+    // Average the inliers, using a circular mean for heading
+    double totalLinearWeight = 0.0;
+    double totalAngularWeight = 0.0;
+    double x = 0.0;
+    double y = 0.0;
+    double cos = 0.0;
+    double sin = 0.0;
+    for (int i = 0; i < size; i++) {
+      int index = (head + i) % capacity;
+      if (!isInlier(bestIndex, index)) {
+        continue;
+      }
+      totalLinearWeight += linearWeights[index];
+      x += xs[index] * linearWeights[index];
+      y += ys[index] * linearWeights[index];
+      if (angularWeights[index] > 0.0) {
+        totalAngularWeight += angularWeights[index];
+        cos += Math.cos(thetas[index]) * angularWeights[index];
+        sin += Math.sin(thetas[index]) * angularWeights[index];
+      }
+    }
+    x /= totalLinearWeight;
+    y /= totalLinearWeight;
+    Rotation2d rotation =
+        totalAngularWeight > 0.0 ? new Rotation2d(cos, sin) : rotationSupplier.get();
+
+    // Check that the inliers agree closely
+    double squaredSpread = 0.0;
+    for (int i = 0; i < size; i++) {
+      int index = (head + i) % capacity;
+      if (isInlier(bestIndex, index)) {
+        squaredSpread += Math.pow(xs[index] - x, 2.0) + Math.pow(ys[index] - y, 2.0);
+      }
+    }
+    double spread = Math.sqrt(squaredSpread / bestInlierCount);
+    Logger.recordOutput("Vision/StartupLocalizer/SpreadMeters", spread);
+    if (spread > startupMaxSpreadMeters) {
+      return;
+    }
+
+    // Seed pose
+    Pose2d pose = new Pose2d(x, y, rotation);
+    poseReset.accept(pose);
+    seeded = true;
+    Logger.recordOutput("Vision/StartupLocalizer/SeededPose", pose);
+  }
+
+  private int countInliers(int candidate) {
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (isInlier(candidate, (head + i) % capacity)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private boolean isInlier(int candidate, int index) {
+    return Math.hypot(xs[index] - xs[candidate], ys[index] - ys[candidate])
+        < startupInlierDistanceMeters;
+  }
+}
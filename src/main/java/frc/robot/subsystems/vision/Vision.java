@@ -15,35 +15,102 @@ package frc.robot.subsystems.vision;
 
 import static frc.robot.subsystems.vision.VisionConstants.*;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.numbers.N1;
 import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.wpilibj.Alert;
 import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.subsystems.vision.LimelightOrientationPublisher.FlushPoint;
+import frc.robot.subsystems.vision.VisionCameraRegistry.CameraProfile;
+import frc.robot.subsystems.vision.VisionIO.HeadingObservation;
+import frc.robot.subsystems.vision.VisionIO.PoseObservation;
 import frc.robot.subsystems.vision.VisionIO.PoseObservationType;
+import frc.robot.util.LoopProfiler;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.DoubleFunction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
 import org.littletonrobotics.junction.Logger;
 
 public class Vision extends SubsystemBase {
+  /** Values per accepted observation in the StdDevSamples log (see {@link VisionStdDevFitter}). */
+  public static final int stdDevSampleStride = 7;
+
+  // Latency stages traced for each accepted observation, in pipeline order
+  private static final String[] latencyStages = {
+    "CaptureToPublish",
+    "PublishToReceive",
+    "ReceiveToInputs",
+    "InputsToFilter",
+    "FilterToInsert",
+    "Total"
+  };
+
   private final VisionConsumer consumer;
+  private final VisionHeadingConsumer headingConsumer;
+  private final DoubleFunction<Rotation2d> headingAt;
+  private final DoubleUnaryOperator linearSpeedAt;
+  private final DoubleUnaryOperator angularSpeedAt;
+  private final CameraProfile[] cameras;
   private final VisionIO[] io;
   private final VisionIOInputsAutoLogged[] inputs;
+  private final String[] logKeys;
   private final Alert[] disconnectedAlerts;
+  private final VisionStdDevTable stdDevTable;
+  private final JointPoseSolver jointSolver;
+  private final double[] jointFrameTimestamps; // By camera, NaN if not in the fused joint pose
+  private double lastAcceptedTimestamp = Double.NEGATIVE_INFINITY;
+  private final LatencyHistogram[][] latencyHistograms; // By camera, then stage
+  private final Alert[] latencyAlerts;
+  private final LoopProfiler.Section periodicProfile = LoopProfiler.section("Subsystems/Vision");
+  private double lastLatencyPublishTimestamp = 0.0;
+  private double[] stdDevSamples = new double[stdDevSampleStride * 8];
 
-  public Vision(VisionConsumer consumer, VisionIO... io) {
+  /**
+   * Creates a new Vision subsystem.
+   *
+   * @param consumer The consumer for accepted pose observations.
+   * @param headingConsumer The consumer for accepted heading-only observations.
+   * @param headingAt Returns the estimated robot heading at a timestamp.
+   * @param linearSpeedAt Returns the robot's linear speed (m/s) at a timestamp.
+   * @param angularSpeedAt Returns the robot's angular speed (rad/s) at a timestamp.
+   * @param cameras The camera profiles, in processing order (see {@link VisionCameraRegistry}).
+   * @param ioFactory Creates the IO implementation for each camera profile.
+   */
+  public Vision(
+      VisionConsumer consumer,
+      VisionHeadingConsumer headingConsumer,
+      DoubleFunction<Rotation2d> headingAt,
+      DoubleUnaryOperator linearSpeedAt,
+      DoubleUnaryOperator angularSpeedAt,
+      List<CameraProfile> cameras,
+      Function<CameraProfile, VisionIO> ioFactory) {
     this.consumer = consumer;
-    this.io = io;
+    this.headingConsumer = headingConsumer;
+    this.headingAt = headingAt;
+    this.linearSpeedAt = linearSpeedAt;
+    this.angularSpeedAt = angularSpeedAt;
+    this.cameras = cameras.toArray(new CameraProfile[cameras.size()]);
 
-    // Initialize inputs
-    this.inputs = new VisionIOInputsAutoLogged[io.length];
-    for (int i = 0; i < inputs.length; i++) {
+    // Initialize IO and inputs
+    this.io = new VisionIO[this.cameras.length];
+    this.inputs = new VisionIOInputsAutoLogged[this.cameras.length];
+    this.logKeys = new String[this.cameras.length];
+    for (int i = 0; i < io.length; i++) {
+      io[i] = ioFactory.apply(this.cameras[i]);
       inputs[i] = new VisionIOInputsAutoLogged();
+      logKeys[i] = "Vision/" + this.cameras[i].name();
     }
 
     // Initialize disconnected alerts
@@ -51,24 +118,82 @@ public class Vision extends SubsystemBase {
     for (int i = 0; i < inputs.length; i++) {
       disconnectedAlerts[i] =
           new Alert(
-              "Vision camera " + Integer.toString(i) + " is disconnected.", AlertType.kWarning);
+              "Vision camera " + this.cameras[i].name() + " is disconnected.", AlertType.kWarning);
+    }
+
+    // Initialize latency histograms and budget alerts
+    this.latencyHistograms = new LatencyHistogram[io.length][latencyStages.length];
+    this.latencyAlerts = new Alert[io.length];
+    for (int i = 0; i < io.length; i++) {
+      for (int stage = 0; stage < latencyStages.length; stage++) {
+        latencyHistograms[i][stage] =
+            new LatencyHistogram(latencyHistogramBinSeconds, latencyHistogramBinCount);
+      }
+      latencyAlerts[i] = new Alert("", AlertType.kWarning);
+    }
+
+    // Load learned std dev tables
+    this.stdDevTable = VisionStdDevTable.load(this.cameras);
+
+    // Initialize joint solver with the camera transforms
+    Transform3d[] robotToCameras = new Transform3d[this.cameras.length];
+    for (int i = 0; i < robotToCameras.length; i++) {
+      robotToCameras[i] = this.cameras[i].robotToCamera();
     }
+    this.jointSolver = new JointPoseSolver(robotToCameras);
+    this.jointFrameTimestamps = new double[this.cameras.length];
   }
 
   /**
    * Returns the X angle to the best target, which can be used for simple servoing with vision.
    *
-   * @param cameraIndex The index of the camera to use.
+   * @param cameraIndex The index of the camera to use, in registry order.
    */
   public Rotation2d getTargetX(int cameraIndex) {
     return inputs[cameraIndex].latestTargetObservation.tx();
   }
 
+  /**
+   * Returns the field heading that points the camera at its latest target. The heading is
+   * corrected for latency using the estimated heading at capture time, so it stays valid while
+   * the robot turns.
+   *
+   * @param cameraIndex The index of the camera to use, in registry order.
+   * @param maxAgeSeconds The maximum age of the target observation.
+   * @return The target heading, or empty if there is no recent target.
+   */
+  public Optional<Rotation2d> getTargetHeading(int cameraIndex, double maxAgeSeconds) {
+    var observation = inputs[cameraIndex].latestTargetObservation;
+    if (observation.timestamp() <= 0.0
+        || Timer.getFPGATimestamp() - observation.timestamp() > maxAgeSeconds) {
+      return Optional.empty();
+    }
+    double cameraYaw = cameras[cameraIndex].robotToCamera().getRotation().getZ();
+    return Optional.of(
+        headingAt
+            .apply(observation.timestamp())
+            .plus(new Rotation2d(cameraYaw))
+            .minus(observation.tx()));
+  }
+
+  /**
+   * Returns the confidence in the fused pose from 0 to 1, decaying linearly to zero over {@link
+   * VisionConstants#poseConfidenceTimeoutSeconds} after the last accepted pose observation.
+   */
+  public double getPoseConfidence() {
+    return MathUtil.clamp(
+        1.0 - (Timer.getFPGATimestamp() - lastAcceptedTimestamp) / poseConfidenceTimeoutSeconds,
+        0.0,
+        1.0);
+  }
+
   @Override
   public void periodic() {
+    periodicProfile.start();
+    LimelightOrientationPublisher.getInstance().periodic(FlushPoint.VISION_PERIODIC);
     for (int i = 0; i < io.length; i++) {
       io[i].updateInputs(inputs[i]);
-      Logger.processInputs("Vision/Camera" + Integer.toString(i), inputs[i]);
+      Logger.processInputs(logKeys[i], inputs[i]);
     }
 
     // Initialize logging values
@@ -77,6 +202,24 @@ public class Vision extends SubsystemBase {
     List<Pose3d> allRobotPosesAccepted = new LinkedList<>();
     List<Pose3d> allRobotPosesRejected = new LinkedList<>();
 
+    // Solve a joint pose from cameras that each see a single tag. When it is accepted, it replaces
+    // the single-tag observations it was built from, so those frames aren't counted twice.
+    Arrays.fill(jointFrameTimestamps, Double.NaN);
+    if (enableJointPoseSolve) {
+      var jointObservation = solveJointPose();
+      if (jointObservation != null) {
+        allRobotPoses.add(jointObservation.pose());
+        if (processObservation(jointObservation, -1)) {
+          allRobotPosesAccepted.add(jointObservation.pose());
+        } else {
+          allRobotPosesRejected.add(jointObservation.pose());
+          Arrays.fill(jointFrameTimestamps, Double.NaN);
+        }
+      } else {
+        Arrays.fill(jointFrameTimestamps, Double.NaN);
+      }
+    }
+
     // Loop over cameras
     for (int cameraIndex = 0; cameraIndex < io.length; cameraIndex++) {
       // Update disconnected alert
@@ -87,6 +230,9 @@ public class Vision extends SubsystemBase {
       List<Pose3d> robotPoses = new LinkedList<>();
       List<Pose3d> robotPosesAccepted = new LinkedList<>();
       List<Pose3d> robotPosesRejected = new LinkedList<>();
+      int stdDevSampleCount = 0;
+      double[] skipHeadingTimestamps = new double[inputs[cameraIndex].poseObservations.length];
+      int skipHeadingCount = 0;
 
       // Add tag poses
       for (int tagId : inputs[cameraIndex].tagIds) {
@@ -98,73 +244,80 @@ public class Vision extends SubsystemBase {
 
       // Loop over pose observations
       for (var observation : inputs[cameraIndex].poseObservations) {
-        // Check whether to reject pose
-        boolean rejectPose =
-            observation.tagCount() == 0 // Must have at least one tag
-                || (observation.tagCount() == 1
-                    && observation.ambiguity() > maxAmbiguity) // Cannot be high ambiguity
-                || Math.abs(observation.pose().getZ())
-                    > maxZError // Must have realistic Z coordinate
-
-                // Must be within the field boundaries
-                || observation.pose().getX() < 0.0
-                || observation.pose().getX() > aprilTagLayout.getFieldLength()
-                || observation.pose().getY() < 0.0
-                || observation.pose().getY() > aprilTagLayout.getFieldWidth();
-
         // Add pose to log
         robotPoses.add(observation.pose());
-        if (rejectPose) {
-          robotPosesRejected.add(observation.pose());
-        } else {
-          robotPosesAccepted.add(observation.pose());
-        }
 
-        // Skip if rejected
-        if (rejectPose) {
+        // Skip the frame if it was already fused as part of the joint pose
+        if (observation.timestamp() == jointFrameTimestamps[cameraIndex]) {
+          skipHeadingTimestamps[skipHeadingCount++] = observation.timestamp();
           continue;
         }
 
-        // Calculate standard deviations
-        double stdDevFactor =
-            Math.pow(observation.averageTagDistance(), 2.0) / observation.tagCount();
-        double linearStdDev = linearStdDevBaseline * stdDevFactor;
-        double angularStdDev = angularStdDevBaseline * stdDevFactor;
-        if (observation.type() == PoseObservationType.MEGATAG_2) {
-          linearStdDev *= linearStdDevMegatag2Factor;
-          angularStdDev *= angularStdDevMegatag2Factor;
+        boolean accepted = processObservation(observation, cameraIndex);
+        if (!accepted) {
+          robotPosesRejected.add(observation.pose());
+
+          // A pose outside the field is implausible, so its heading isn't trusted either
+          if (isOutsideField(observation.pose())) {
+            skipHeadingTimestamps[skipHeadingCount++] = observation.timestamp();
+          }
+          continue;
         }
-        if (cameraIndex < cameraStdDevFactors.length) {
-          linearStdDev *= cameraStdDevFactors[cameraIndex];
-          angularStdDev *= cameraStdDevFactors[cameraIndex];
+        robotPosesAccepted.add(observation.pose());
+        skipHeadingTimestamps[skipHeadingCount++] = observation.timestamp();
+
+        // Record sample for offline std dev fitting
+        int offset = stdDevSampleCount * stdDevSampleStride;
+        if (offset + stdDevSampleStride > stdDevSamples.length) {
+          stdDevSamples = Arrays.copyOf(stdDevSamples, stdDevSamples.length * 2);
         }
+        stdDevSamples[offset] = observation.timestamp();
+        stdDevSamples[offset + 1] = observation.pose().getX();
+        stdDevSamples[offset + 2] = observation.pose().getY();
+        stdDevSamples[offset + 3] = observation.pose().toPose2d().getRotation().getRadians();
+        stdDevSamples[offset + 4] = observation.tagCount();
+        stdDevSamples[offset + 5] = observation.primaryTagId();
+        stdDevSamples[offset + 6] = observation.averageTagDistance();
+        stdDevSampleCount++;
+      }
 
-        // Send vision observation
-        consumer.accept(
-            observation.pose().toPose2d(),
-            observation.timestamp(),
-            VecBuilder.fill(linearStdDev, linearStdDev, angularStdDev));
+      // Loop over heading observations, skipping frames whose full pose was accepted or whose pose
+      // was outside the field. Poses rejected for ambiguity, Z error or range still give a heading.
+      if (enableHeadingEstimation) {
+        for (var observation : inputs[cameraIndex].headingObservations) {
+          boolean skip = false;
+          for (int i = 0; i < skipHeadingCount; i++) {
+            skip |= skipHeadingTimestamps[i] == observation.timestamp();
+          }
+          if (!skip) {
+            processHeadingObservation(observation);
+          }
+        }
       }
 
       // Log camera datadata
       Logger.recordOutput(
-          "Vision/Camera" + Integer.toString(cameraIndex) + "/TagPoses",
-          tagPoses.toArray(new Pose3d[tagPoses.size()]));
+          logKeys[cameraIndex] + "/TagPoses", tagPoses.toArray(new Pose3d[tagPoses.size()]));
       Logger.recordOutput(
-          "Vision/Camera" + Integer.toString(cameraIndex) + "/RobotPoses",
-          robotPoses.toArray(new Pose3d[robotPoses.size()]));
+          logKeys[cameraIndex] + "/RobotPoses", robotPoses.toArray(new Pose3d[robotPoses.size()]));
       Logger.recordOutput(
-          "Vision/Camera" + Integer.toString(cameraIndex) + "/RobotPosesAccepted",
+          logKeys[cameraIndex] + "/RobotPosesAccepted",
           robotPosesAccepted.toArray(new Pose3d[robotPosesAccepted.size()]));
       Logger.recordOutput(
-          "Vision/Camera" + Integer.toString(cameraIndex) + "/RobotPosesRejected",
+          logKeys[cameraIndex] + "/RobotPosesRejected",
           robotPosesRejected.toArray(new Pose3d[robotPosesRejected.size()]));
+      Logger.recordOutput(
+          logKeys[cameraIndex] + "/StdDevSamples",
+          Arrays.copyOf(stdDevSamples, stdDevSampleCount * stdDevSampleStride));
       allTagPoses.addAll(tagPoses);
       allRobotPoses.addAll(robotPoses);
       allRobotPosesAccepted.addAll(robotPosesAccepted);
       allRobotPosesRejected.addAll(robotPosesRejected);
     }
 
+    // Log latency summaries
+    publishLatencies();
+
     // Log summary data
     Logger.recordOutput(
         "Vision/Summary/TagPoses", allTagPoses.toArray(new Pose3d[allTagPoses.size()]));
@@ -176,6 +329,248 @@ public class Vision extends SubsystemBase {
     Logger.recordOutput(
         "Vision/Summary/RobotPosesRejected",
         allRobotPosesRejected.toArray(new Pose3d[allRobotPosesRejected.size()]));
+    periodicProfile.stop();
+  }
+
+  /**
+   * Checks whether to reject a pose observation, then sends accepted observations to the consumer
+   * with standard deviations for the camera.
+   *
+   * @param observation The pose observation.
+   * @param cameraIndex The index of the camera, or -1 for a joint observation across cameras.
+   * @return Whether the observation was accepted.
+   */
+  private boolean processObservation(PoseObservation observation, int cameraIndex) {
+    CameraProfile camera = cameraIndex >= 0 ? cameras[cameraIndex] : null;
+
+    // Check whether to reject pose
+    boolean rejectPose =
+        observation.tagCount() == 0 // Must have at least one tag
+            || (observation.tagCount() == 1
+                && observation.ambiguity() > maxAmbiguity) // Cannot be high ambiguity
+            || Math.abs(observation.pose().getZ()) > maxZError // Must have realistic Z coordinate
+            || (camera != null
+                && observation.averageTagDistance()
+                    > camera.maxRangeMeters()) // Must be within camera range
+
+            || isOutsideField(observation.pose()); // Must be within the field boundaries
+    double filterTimestamp = Logger.getRealTimestamp() * 1.0e-6;
+    if (rejectPose) {
+      return false;
+    }
+
+    // Calculate standard deviations, preferring the learned table for the primary tag
+    double distanceFactor = Math.pow(observation.averageTagDistance(), 2.0);
+    double cameraFactor = camera != null ? camera.stdDevFactor() : jointStdDevFactor;
+    double linearStdDev =
+        camera != null
+            ? stdDevTable.getLinearStdDev(
+                cameraIndex, observation.primaryTagId(), observation.averageTagDistance())
+            : Double.NaN;
+    double angularStdDev =
+        camera != null
+            ? stdDevTable.getAngularStdDev(
+                cameraIndex, observation.primaryTagId(), observation.averageTagDistance())
+            : Double.NaN;
+    if (Double.isNaN(linearStdDev)) {
+      linearStdDev = linearStdDevBaseline * distanceFactor * cameraFactor;
+    }
+    if (Double.isNaN(angularStdDev)) {
+      angularStdDev = angularStdDevBaseline * distanceFactor * cameraFactor;
+    }
+    linearStdDev /= observation.tagCount();
+    angularStdDev /= observation.tagCount();
+    if (observation.type() == PoseObservationType.MEGATAG_2) {
+      linearStdDev *= linearStdDevMegatag2Factor;
+      angularStdDev *= angularStdDevMegatag2Factor;
+    }
+
+    // Trust frames captured during fast motion less (motion blur and rolling shutter)
+    double smearRadians =
+        (angularSpeedAt.applyAsDouble(observation.timestamp())
+                + linearSpeedAt.applyAsDouble(observation.timestamp())
+                    / Math.max(observation.averageTagDistance(), 0.5))
+            * (camera != null ? camera.exposureSeconds() : defaultExposureSeconds);
+    double motionFactor = 1.0 + motionBlurStdDevGain * smearRadians;
+    linearStdDev *= motionFactor;
+    angularStdDev *= motionFactor;
+
+    // Send vision observation
+    consumer.accept(
+        observation.pose().toPose2d(),
+        observation.timestamp(),
+        VecBuilder.fill(linearStdDev, linearStdDev, angularStdDev));
+    lastAcceptedTimestamp = Math.max(lastAcceptedTimestamp, observation.timestamp());
+
+    // Record latency of each pipeline stage
+    if (camera != null) {
+      double insertTimestamp = Logger.getRealTimestamp() * 1.0e-6;
+      LatencyHistogram[] histograms = latencyHistograms[cameraIndex];
+      histograms[0].record(observation.publishTimestamp() - observation.timestamp());
+      histograms[1].record(observation.receiveTimestamp() - observation.publishTimestamp());
+      histograms[2].record(observation.inputsTimestamp() - observation.receiveTimestamp());
+      histograms[3].record(filterTimestamp - observation.inputsTimestamp());
+      histograms[4].record(insertTimestamp - filterTimestamp);
+      histograms[5].record(insertTimestamp - observation.timestamp());
+    }
+    return true;
+  }
+
+  /** Returns whether a pose is outside the field boundaries. */
+  private static boolean isOutsideField(Pose3d pose) {
+    return pose.getX() < 0.0
+        || pose.getX() > aprilTagLayout.getFieldLength()
+        || pose.getY() < 0.0
+        || pose.getY() > aprilTagLayout.getFieldWidth();
+  }
+
+  /** Logs latency percentiles for each camera and stage, then starts a new window. */
+  private void publishLatencies() {
+    double timestamp = Timer.getFPGATimestamp();
+    if (timestamp - lastLatencyPublishTimestamp < latencyPublishPeriodSeconds) {
+      return;
+    }
+    lastLatencyPublishTimestamp = timestamp;
+
+    for (int cameraIndex = 0; cameraIndex < io.length; cameraIndex++) {
+      for (int stage = 0; stage < latencyStages.length; stage++) {
+        LatencyHistogram histogram = latencyHistograms[cameraIndex][stage];
+        String key = logKeys[cameraIndex] + "/Latency/" + latencyStages[stage];
+        Logger.recordOutput(key + "/Count", histogram.getCount());
+        Logger.recordOutput(key + "/P50Ms", histogram.getPercentile(0.5) * 1000.0);
+        Logger.recordOutput(key + "/P95Ms", histogram.getPercentile(0.95) * 1000.0);
+        Logger.recordOutput(key + "/MaxMs", histogram.getMax() * 1000.0);
+        Logger.recordOutput(key + "/Histogram", histogram.getCounts());
+      }
+
+      // Check total latency against the budget
+      double totalP95 =
+          latencyHistograms[cameraIndex][latencyStages.length - 1].getPercentile(0.95);
+      latencyAlerts[cameraIndex].setText(
+          String.format(
+              "Vision camera %s latency (p95 %.0f ms) exceeds budget of %.0f ms.",
+              cameras[cameraIndex].name(), totalP95 * 1000.0, latencyBudgetSeconds * 1000.0));
+      latencyAlerts[cameraIndex].set(totalP95 > latencyBudgetSeconds);
+
+      for (var histogram : latencyHistograms[cameraIndex]) {
+        histogram.reset();
+      }
+    }
+  }
+
+  /**
+   * Resolves the heading of a single-tag observation and sends it to the heading consumer. If the
+   * result is ambiguous, the solution closest to the estimated heading at capture time is used.
+   */
+  private void processHeadingObservation(HeadingObservation observation) {
+    if (observation.tagDistance() > headingMaxDistanceMeters) {
+      return;
+    }
+
+    // Pick the heading solution
+    Rotation2d heading = observation.bestHeading();
+    double stdDev =
+        headingStdDevBaseline * Math.pow(Math.max(observation.tagDistance(), 1.0), 2.0);
+    if (observation.ambiguity() > maxAmbiguity) {
+      double separation =
+          Math.abs(observation.altHeading().minus(observation.bestHeading()).getRadians());
+      if (separation > headingMinSeparationRadians) {
+        Rotation2d estimatedHeading = headingAt.apply(observation.timestamp());
+        double bestError = Math.abs(observation.bestHeading().minus(estimatedHeading).getRadians());
+        double altError = Math.abs(observation.altHeading().minus(estimatedHeading).getRadians());
+        if (altError < bestError) {
+          heading = observation.altHeading();
+        }
+      }
+      stdDev *= headingAmbiguousStdDevFactor;
+    }
+
+    Logger.recordOutput("Vision/Heading/Accepted", heading);
+    headingConsumer.accept(heading, observation.timestamp(), stdDev);
+  }
+
+  /**
+   * Combines the latest frames from cameras that each see exactly one tag into a single pose
+   * observation. Returns null if fewer than two cameras qualify or the solve fails. The timestamp
+   * of each camera's frame that was used is stored in {@link #jointFrameTimestamps}.
+   */
+  private PoseObservation solveJointPose() {
+    // Find the latest single-tag frame from each camera
+    int[] frameIndices = new int[io.length];
+    double latestTimestamp = Double.NEGATIVE_INFINITY;
+    for (int cameraIndex = 0; cameraIndex < io.length; cameraIndex++) {
+      frameIndices[cameraIndex] = -1;
+      var tagObservations = inputs[cameraIndex].tagObservations;
+      if (tagObservations.length == 0) {
+        continue;
+      }
+      int last = tagObservations.length - 1;
+      double frameTimestamp = tagObservations[last].timestamp();
+      if (last > 0 && tagObservations[last - 1].timestamp() == frameTimestamp) {
+        continue; // Multiple tags in frame, already solved by the camera
+      }
+      frameIndices[cameraIndex] = last;
+      latestTimestamp = Math.max(latestTimestamp, frameTimestamp);
+    }
+
+    // Add frames captured close to the latest frame
+    jointSolver.clear();
+    List<Pose2d> initialGuesses = new LinkedList<>();
+    double totalTimestamp = 0.0;
+    double publishTimestamp = Double.NEGATIVE_INFINITY;
+    double receiveTimestamp = Double.NEGATIVE_INFINITY;
+    double inputsTimestamp = Double.NEGATIVE_INFINITY;
+    int cameraCount = 0;
+    for (int cameraIndex = 0; cameraIndex < io.length; cameraIndex++) {
+      if (frameIndices[cameraIndex] < 0) {
+        continue;
+      }
+      var tag = inputs[cameraIndex].tagObservations[frameIndices[cameraIndex]];
+      if (latestTimestamp - tag.timestamp() > jointMaxTimeSkewSeconds) {
+        continue;
+      }
+      jointSolver.addObservation(cameraIndex, tag.tagId(), tag.yawRadians(), tag.pitchRadians());
+      jointFrameTimestamps[cameraIndex] = tag.timestamp();
+      totalTimestamp += tag.timestamp();
+      cameraCount++;
+
+      // Use the camera's own single-tag solve as a starting point
+      for (var observation : inputs[cameraIndex].poseObservations) {
+        if (observation.timestamp() == tag.timestamp()) {
+          initialGuesses.add(observation.pose().toPose2d());
+          publishTimestamp = Math.max(publishTimestamp, observation.publishTimestamp());
+          receiveTimestamp = Math.max(receiveTimestamp, observation.receiveTimestamp());
+          inputsTimestamp = Math.max(inputsTimestamp, observation.inputsTimestamp());
+        }
+      }
+    }
+    Logger.recordOutput("Vision/Joint/CameraCount", cameraCount);
+    if (cameraCount < 2 || initialGuesses.isEmpty()) {
+      return null;
+    }
+
+    // Solve from each starting point, keeping the best fit
+    double bestResidual = Double.POSITIVE_INFINITY;
+    PoseObservation bestObservation = null;
+    for (var initialGuess : initialGuesses) {
+      if (jointSolver.solve(initialGuess) && jointSolver.getRmsResidual() < bestResidual) {
+        bestResidual = jointSolver.getRmsResidual();
+        bestObservation =
+            new PoseObservation(
+                totalTimestamp / cameraCount, // Timestamp
+                publishTimestamp, // Publish timestamp
+                receiveTimestamp, // Receive timestamp
+                inputsTimestamp, // Inputs timestamp
+                jointSolver.getPose(), // 3D pose estimate
+                0.0, // Ambiguity
+                jointSolver.getTagCount(), // Tag count
+                jointSolver.getClosestTagId(), // Primary tag ID
+                jointSolver.getAverageTagDistance(), // Average tag distance
+                PoseObservationType.JOINT); // Observation type
+      }
+    }
+    Logger.recordOutput("Vision/Joint/RmsResidual", bestResidual);
+    return bestResidual <= jointMaxResidualRadians ? bestObservation : null;
   }
 
   @FunctionalInterface
@@ -185,4 +580,10 @@ public class Vision extends SubsystemBase {
         double timestampSeconds,
         Matrix<N3, N1> visionMeasurementStdDevs);
   }
+
+  @FunctionalInterface
+  public static interface VisionHeadingConsumer {
+    public void accept(
+        Rotation2d visionRobotHeading, double timestampSeconds, double visionHeadingStdDev);
+  }
 }
@@ -0,0 +1,102 @@
+package frc.robot.subsystems.vision;
+
+import static frc.robot.subsystems.vision.VisionConstants.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.Filesystem;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Loads the per-camera vision profiles from {@code deploy/vision/cameras.json}.
+ *
+ * <p>Profiles are returned in processing order (highest priority first), and {@link Vision} builds
+ * its IO array from that list, so camera indices never need to be matched by hand. If the file is
+ * missing or invalid, a single profile is built from {@link VisionConstants#cameraName} and {@link
+ * VisionConstants#robotToCamera}.
+ */
+public class VisionCameraRegistry {
+  public static final String configPath = "vision/cameras.json";
+
+  /** The IO implementation used for a camera on the real robot. */
+  public static enum CameraIOType {
+    PHOTONVISION,
+    LIMELIGHT
+  }
+
+  /** The configuration of a single camera. */
+  public static record CameraProfile(
+      String name,
+      CameraIOType ioType,
+      Transform3d robotToCamera,
+      double stdDevFactor,
+      double maxRangeMeters,
+      double exposureSeconds,
+      int priority) {}
+
+  private VisionCameraRegistry() {}
+
+  /** Loads the camera profiles from the deploy directory. */
+  public static List<CameraProfile> load() {
+    File file = new File(Filesystem.getDeployDirectory(), configPath);
+    try {
+      List<CameraProfile> profiles = parse(new ObjectMapper().readTree(file));
+      if (!profiles.isEmpty()) {
+        return profiles;
+      }
+      System.out.println("No cameras configured in " + file + ", using default camera");
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("Failed to load camera config " + file + ", using default camera: " + e);
+    }
+    return List.of(
+        new CameraProfile(
+            cameraName,
+            CameraIOType.PHOTONVISION,
+            robotToCamera,
+            1.0,
+            Double.MAX_VALUE,
+            defaultExposureSeconds,
+            0));
+  }
+
+  private static List<CameraProfile> parse(JsonNode root) {
+    List<CameraProfile> profiles = new ArrayList<>();
+    for (JsonNode camera : root.path("cameras")) {
+      String name = camera.path("name").asText();
+      if (name.isEmpty()) {
+        throw new IllegalArgumentException("Camera is missing a name");
+      }
+      for (var profile : profiles) {
+        if (profile.name().equals(name)) {
+          throw new IllegalArgumentException("Duplicate camera name " + name);
+        }
+      }
+      JsonNode transform = camera.path("robotToCamera");
+      profiles.add(
+          new CameraProfile(
+              name,
+              CameraIOType.valueOf(camera.path("io").asText(CameraIOType.PHOTONVISION.name())),
+              new Transform3d(
+                  transform.path("x").asDouble(),
+                  transform.path("y").asDouble(),
+                  transform.path("z").asDouble(),
+                  new Rotation3d(
+                      Units.degreesToRadians(transform.path("rollDegrees").asDouble()),
+                      Units.degreesToRadians(transform.path("pitchDegrees").asDouble()),
+                      Units.degreesToRadians(transform.path("yawDegrees").asDouble()))),
+              camera.path("stdDevFactor").asDouble(1.0),
+              camera.path("maxRangeMeters").asDouble(Double.MAX_VALUE),
+              camera.path("exposureMs").asDouble(defaultExposureSeconds * 1000.0) / 1000.0,
+              camera.path("priority").asInt(0)));
+    }
+    profiles.sort(Comparator.comparingInt(CameraProfile::priority).reversed());
+    return profiles;
+  }
+}
@@ -18,16 +18,17 @@ import edu.wpi.first.apriltag.AprilTagFields;
 import edu.wpi.first.math.geometry.Rotation3d;
 import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.util.Units;
+import frc.robot.subsystems.vision.LimelightOrientationPublisher.FlushPoint;
 
 public class VisionConstants {
   // AprilTag layout
   public static AprilTagFieldLayout aprilTagLayout =
       AprilTagFieldLayout.loadField(AprilTagFields.kDefaultField);
 
-  // Camera names, must match names configured on coprocessor
+  // Default camera name and transform, used if deploy/vision/cameras.json can't be loaded
+  // (Camera names must match names configured on coprocessor)
   public static String cameraName = "BackCamera";
 
-  // Robot to camera transforms
   // (Not used by Limelight, configure in web UI instead)
   public static Transform3d robotToCamera =
       new Transform3d(
@@ -37,21 +38,85 @@ public class VisionConstants {
   public static double maxAmbiguity = 0.3;
   public static double maxZError = 0.75;
 
+  // Backlog limits for unread camera results
+  // (Age limit matches the pose estimator's 1.5 second history window)
+  public static int maxResultsPerCycle = 5;
+  public static double maxResultAgeSeconds = 1.5;
+
   // Standard deviation baselines, for 1 meter distance and 1 tag
   // (Adjusted automatically based on distance and # of tags)
   public static double linearStdDevBaseline = 0.02; // Meters
   public static double angularStdDevBaseline = 0.06; // Radians
 
-  // Standard deviation multipliers for each camera
-  // (Adjust to trust some cameras more than others)
-  public static double[] cameraStdDevFactors =
-      new double[] {
-        1.0, // Camera 0
-        1.0 // Camera 1
-      };
+  // Motion blur trust model
+  // (Std devs are multiplied by 1 + gain * image smear in radians during the exposure, where the
+  // smear is angular speed plus linear speed over tag distance, times exposure time)
+  public static double defaultExposureSeconds = 0.01;
+  public static double motionBlurStdDevGain = 30.0;
 
   // Multipliers to apply for MegaTag 2 observations
   public static double linearStdDevMegatag2Factor = 0.5; // More stable than full 3D solve
   public static double angularStdDevMegatag2Factor =
       Double.POSITIVE_INFINITY; // No rotation data available
+
+  // Latency tracing
+  // (Histograms are logged and reset every publish period, and the alert is raised when the p95
+  // capture-to-insert latency exceeds the budget)
+  public static double latencyHistogramBinSeconds = 0.005;
+  public static int latencyHistogramBinCount = 40;
+  public static double latencyPublishPeriodSeconds = 5.0;
+  public static double latencyBudgetSeconds = 0.1;
+
+  // Vision aim servo
+  // (Blends from pose-based aiming to the camera target as pose confidence decays after the last
+  // accepted pose observation)
+  public static int aimCameraIndex = 0;
+  public static double aimTargetMaxAgeSeconds = 0.25;
+  public static double poseConfidenceTimeoutSeconds = 1.0;
+
+  // Heading-only estimation from single-tag results
+  // (Ambiguous results pick the solution closest to the estimator heading at capture time, and
+  // results whose full pose was already accepted are skipped)
+  public static boolean enableHeadingEstimation = true;
+  public static double headingStdDevBaseline = 0.03; // Radians, for 1 meter distance
+  public static double headingAmbiguousStdDevFactor = 3.0;
+  public static double headingMaxDistanceMeters = 4.0;
+  public static double headingMinSeparationRadians = 0.15; // Between best and alt to disambiguate
+
+  // Startup localization while disabled
+  // (Seeds the pose once per disabled period from a consensus of recent observations)
+  public static boolean enableStartupLocalization = true;
+  public static double startupWindowSeconds = 1.0;
+  public static int startupMinSamples = 10;
+  public static double startupMinInlierFraction = 0.7;
+  public static double startupInlierDistanceMeters = 0.15;
+  public static double startupMaxSpreadMeters = 0.08; // RMS distance of inliers from the mean
+
+  // Joint pose solve across cameras that each see a single tag
+  // (Bearings to tag centers must be captured within the skew of each other)
+  public static boolean enableJointPoseSolve = true;
+  public static double jointMaxTimeSkewSeconds = 0.02;
+  public static double jointMaxResidualRadians = 0.01; // RMS bearing residual
+  public static double jointStdDevFactor = 1.0;
+
+  // Geometric vision sim, a cheaper alternative to the PhotonVision sim pipeline
+  // (Noise baselines are for 1 meter distance and 1 tag, scaled like the std dev model)
+  public static boolean useGeometricVisionSim = false;
+  public static double simHorizontalFovDegrees = 77.3;
+  public static double simVerticalFovDegrees = 61.9;
+  public static double simMaxRangeMeters = 6.0;
+  public static double simFrameRate = 30.0; // Frames per second
+  public static double simLatencyMean = 0.035; // Seconds
+  public static double simLatencyStdDev = 0.005; // Seconds
+  public static double simDropoutProbability = 0.05;
+  public static double simMaxAmbiguity = 0.4;
+  public static double simLinearNoiseBaseline = 0.01; // Meters
+  public static double simAngularNoiseBaseline = 0.03; // Radians
+  public static double simBearingNoiseRadians = 0.002;
+
+  // Limelight MegaTag 2 orientation publishing
+  // (All cameras are flushed together once per cycle at the selected point)
+  public static FlushPoint orientationFlushPoint = FlushPoint.VISION_PERIODIC;
+  public static double orientationPublishThresholdDegrees = 0.05;
+  public static double orientationMaxPublishPeriod = 0.5; // Seconds
 }
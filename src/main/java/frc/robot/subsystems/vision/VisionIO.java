@@ -22,27 +22,64 @@ public interface VisionIO {
   public static class VisionIOInputs {
     public boolean connected = false;
     public TargetObservation latestTargetObservation =
-        new TargetObservation(new Rotation2d(), new Rotation2d());
+        new TargetObservation(0.0, new Rotation2d(), new Rotation2d());
     public PoseObservation[] poseObservations = new PoseObservation[0];
     public int[] tagIds = new int[0];
+    public TagObservation[] tagObservations = new TagObservation[0];
+    public HeadingObservation[] headingObservations = new HeadingObservation[0];
+    public int processedResultCount = 0;
+    public int droppedResultCount = 0;
   }
 
-  /** Represents the angle to a simple target, not used for pose estimation. */
-  public static record TargetObservation(Rotation2d tx, Rotation2d ty) {}
+  /**
+   * Represents the angle to a simple target, not used for pose estimation. The timestamp is the
+   * capture time, or zero if no target is visible. Positive tx is to the right.
+   */
+  public static record TargetObservation(double timestamp, Rotation2d tx, Rotation2d ty) {}
 
-  /** Represents a robot pose sample used for pose estimation. */
+  /**
+   * Represents a robot pose sample used for pose estimation. The primary tag is the closest (or
+   * only) tag used for the sample, or -1 if unknown.
+   *
+   * <p>The timestamp is the capture time. The publish, receive and inputs timestamps trace the
+   * sample through the coprocessor, NetworkTables and {@code updateInputs}, all in the roboRIO
+   * timebase.
+   */
   public static record PoseObservation(
       double timestamp,
+      double publishTimestamp,
+      double receiveTimestamp,
+      double inputsTimestamp,
       Pose3d pose,
       double ambiguity,
       int tagCount,
+      int primaryTagId,
       double averageTagDistance,
       PoseObservationType type) {}
 
+  /**
+   * Represents the bearing from a camera to the center of a single tag, used for joint pose
+   * estimation across cameras. Yaw is positive to the left and pitch is positive upward.
+   */
+  public static record TagObservation(
+      double timestamp, int tagId, double yawRadians, double pitchRadians) {}
+
+  /**
+   * Represents the robot headings implied by a single-tag solve, used for heading-only estimation.
+   * The alternate heading comes from the second solution of the ambiguous single-tag problem.
+   */
+  public static record HeadingObservation(
+      double timestamp,
+      Rotation2d bestHeading,
+      Rotation2d altHeading,
+      double ambiguity,
+      double tagDistance) {}
+
   public static enum PoseObservationType {
     MEGATAG_1,
     MEGATAG_2,
-    PHOTONVISION
+    PHOTONVISION,
+    JOINT
   }
 
   public default void updateInputs(VisionIOInputs inputs) {}
@@ -0,0 +1,226 @@
+package frc.robot.subsystems.vision;
+
+import static frc.robot.subsystems.vision.VisionConstants.*;
+
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.geometry.Translation3d;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.Timer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * IO implementation for physics sim using simple camera geometry.
+ *
+ * <p>Much cheaper than {@link VisionIOPhotonVisionSim}, which renders every tag through the full
+ * PhotonVision pipeline. Tags are visible when they are in front of the camera, face it, and fall
+ * within the camera's field of view and range. Each frame reports the true robot pose with
+ * Gaussian noise scaled like the real std dev model, and frames are delayed by a random latency or
+ * dropped entirely.
+ */
+public class VisionIOGeometricSim implements VisionIO {
+  private static final Translation3d tagNormal = new Translation3d(1.0, 0.0, 0.0);
+
+  private final Transform3d robotToCamera;
+  private final double maxRangeMeters;
+  private final Supplier<Pose2d> poseSupplier;
+  private final Random random;
+
+  private final int[] fieldTagIds;
+  private final Pose3d[] fieldTagPoses;
+  private final Translation3d[] fieldTagNormals;
+
+  private final ArrayDeque<Frame> pendingFrames = new ArrayDeque<>();
+  private double lastCaptureTimestamp = Double.NEGATIVE_INFINITY;
+  private double lastReleaseTimestamp = Double.NEGATIVE_INFINITY;
+
+  /** A simulated frame waiting for its latency to elapse. */
+  private static record Frame(
+      double releaseTimestamp,
+      PoseObservation observation,
+      TargetObservation target,
+      int[] tagIds,
+      TagObservation[] tagObservations) {}
+
+  /**
+   * Creates a new VisionIOGeometricSim.
+   *
+   * @param name The name of the camera, used to seed the noise.
+   * @param robotToCamera The 3D position of the camera relative to the robot.
+   * @param maxRangeMeters The maximum distance at which tags are visible.
+   * @param poseSupplier Supplier for the true robot pose. This must not include vision
+   *     measurements, or the noise added here feeds back into the pose it is generated from.
+   */
+  public VisionIOGeometricSim(
+      String name,
+      Transform3d robotToCamera,
+      double maxRangeMeters,
+      Supplier<Pose2d> poseSupplier) {
+    this.robotToCamera = robotToCamera;
+    this.maxRangeMeters = Math.min(maxRangeMeters, simMaxRangeMeters);
+    this.poseSupplier = poseSupplier;
+    this.random = new Random(name.hashCode()); // Repeatable noise for each camera
+
+    // Cache tag poses and face normals
+    var tags = aprilTagLayout.getTags();
+    fieldTagIds = new int[tags.size()];
+    fieldTagPoses = new Pose3d[tags.size()];
+    fieldTagNormals = new Translation3d[tags.size()];
+    for (int i = 0; i < tags.size(); i++) {
+      AprilTag tag = tags.get(i);
+      fieldTagIds[i] = tag.ID;
+      fieldTagPoses[i] = tag.pose;
+      fieldTagNormals[i] = tagNormal.rotateBy(tag.pose.getRotation());
+    }
+  }
+
+  @Override
+  public void updateInputs(VisionIOInputs inputs) {
+    double timestamp = Timer.getFPGATimestamp();
+    inputs.connected = true;
+    inputs.droppedResultCount = 0;
+
+    // Capture a new frame at the simulated frame rate
+    if (timestamp - lastCaptureTimestamp >= 1.0 / simFrameRate) {
+      lastCaptureTimestamp = timestamp;
+      if (random.nextDouble() < simDropoutProbability) {
+        inputs.droppedResultCount = 1;
+      } else {
+        capture(timestamp);
+      }
+    }
+
+    // Release frames whose latency has elapsed
+    int releasedCount = 0;
+    int tagCount = 0;
+    for (var frame : pendingFrames) {
+      if (frame.releaseTimestamp() > timestamp) {
+        break;
+      }
+      releasedCount++;
+      tagCount += frame.tagIds().length;
+    }
+    PoseObservation[] poseObservations = new PoseObservation[releasedCount];
+    int[] tagIds = new int[tagCount];
+    TagObservation[] tagObservations = new TagObservation[tagCount];
+    tagCount = 0;
+    for (int i = 0; i < releasedCount; i++) {
+      Frame frame = pendingFrames.pollFirst();
+      int frameTagCount = frame.tagIds().length;
+      var observation = frame.observation();
+      poseObservations[i] =
+          new PoseObservation(
+              observation.timestamp(),
+              observation.publishTimestamp(),
+              observation.receiveTimestamp(),
+              timestamp, // Inputs timestamp
+              observation.pose(),
+              observation.ambiguity(),
+              observation.tagCount(),
+              observation.primaryTagId(),
+              observation.averageTagDistance(),
+              observation.type());
+      System.arraycopy(frame.tagIds(), 0, tagIds, tagCount, frameTagCount);
+      System.arraycopy(frame.tagObservations(), 0, tagObservations, tagCount, frameTagCount);
+      tagCount += frameTagCount;
+      inputs.latestTargetObservation = frame.target();
+    }
+    inputs.poseObservations = poseObservations;
+    inputs.tagIds = tagIds;
+    inputs.tagObservations = tagObservations;
+    inputs.processedResultCount = releasedCount;
+  }
+
+  /** Builds a frame from the tags visible at the current pose and queues it. */
+  private void capture(double timestamp) {
+    Pose3d robotPose = new Pose3d(poseSupplier.get());
+    Pose3d cameraPose = robotPose.transformBy(robotToCamera);
+    Translation3d cameraTranslation = cameraPose.getTranslation();
+    double maxYaw = Units.degreesToRadians(simHorizontalFovDegrees) / 2.0;
+    double maxPitch = Units.degreesToRadians(simVerticalFovDegrees) / 2.0;
+
+    // Find visible tags
+    int[] visibleTagIds = new int[fieldTagIds.length];
+    TagObservation[] visibleTags = new TagObservation[fieldTagIds.length];
+    int visibleCount = 0;
+    double totalDistance = 0.0;
+    double closestDistance = Double.POSITIVE_INFINITY;
+    int closestTagId = -1;
+    TargetObservation target = new TargetObservation(0.0, new Rotation2d(), new Rotation2d());
+    for (int i = 0; i < fieldTagIds.length; i++) {
+      // Tag must face the camera
+      Translation3d tagToCamera = cameraTranslation.minus(fieldTagPoses[i].getTranslation());
+      if (tagToCamera.toVector().dot(fieldTagNormals[i].toVector()) <= 0.0) {
+        continue;
+      }
+
+      // Tag must be in front of the camera, within range and field of view
+      Translation3d cameraToTag = fieldTagPoses[i].relativeTo(cameraPose).getTranslation();
+      double distance = cameraToTag.getNorm();
+      double yaw = Math.atan2(cameraToTag.getY(), cameraToTag.getX());
+      double pitch = Math.atan2(cameraToTag.getZ(), cameraToTag.getX());
+      if (cameraToTag.getX() <= 0.0
+          || distance > maxRangeMeters
+          || Math.abs(yaw) > maxYaw
+          || Math.abs(pitch) > maxPitch) {
+        continue;
+      }
+
+      visibleTags[visibleCount] =
+          new TagObservation(
+              timestamp,
+              fieldTagIds[i],
+              yaw + random.nextGaussian() * simBearingNoiseRadians,
+              pitch + random.nextGaussian() * simBearingNoiseRadians);
+      visibleTagIds[visibleCount++] = fieldTagIds[i];
+      totalDistance += distance;
+      if (distance < closestDistance) {
+        closestDistance = distance;
+        closestTagId = fieldTagIds[i];
+        target = new TargetObservation(timestamp, new Rotation2d(-yaw), new Rotation2d(pitch));
+      }
+    }
+    if (visibleCount == 0) {
+      return;
+    }
+
+    // Add noise scaled like the real std dev model
+    double averageDistance = totalDistance / visibleCount;
+    double stdDevFactor = averageDistance * averageDistance / visibleCount;
+    double linearStdDev = simLinearNoiseBaseline * stdDevFactor;
+    double angularStdDev = simAngularNoiseBaseline * stdDevFactor;
+    Pose2d truePose = robotPose.toPose2d();
+    Pose2d noisyPose =
+        new Pose2d(
+            truePose.getX() + random.nextGaussian() * linearStdDev,
+            truePose.getY() + random.nextGaussian() * linearStdDev,
+            truePose.getRotation().plus(new Rotation2d(random.nextGaussian() * angularStdDev)));
+
+    // Queue frame, keeping release order monotonic
+    double latency = Math.max(0.0, simLatencyMean + random.nextGaussian() * simLatencyStdDev);
+    lastReleaseTimestamp = Math.max(lastReleaseTimestamp, timestamp + latency);
+    pendingFrames.addLast(
+        new Frame(
+            lastReleaseTimestamp,
+            new PoseObservation(
+                timestamp, // Timestamp
+                lastReleaseTimestamp, // Publish timestamp
+                lastReleaseTimestamp, // Receive timestamp
+                0.0, // Inputs timestamp, set on release
+                new Pose3d(noisyPose), // 3D pose estimate
+                visibleCount > 1 ? 0.0 : random.nextDouble() * simMaxAmbiguity, // Ambiguity
+                visibleCount, // Tag count
+                closestTagId, // Primary tag ID
+                averageDistance, // Average tag distance
+                PoseObservationType.PHOTONVISION), // Observation type
+            target,
+            Arrays.copyOf(visibleTagIds, visibleCount),
+            Arrays.copyOf(visibleTags, visibleCount)));
+  }
+}
@@ -18,16 +18,22 @@ import static frc.robot.subsystems.vision.VisionConstants.*;
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import org.photonvision.PhotonCamera;
+import org.photonvision.targeting.PhotonPipelineResult;
 
 /** IO implementation for real PhotonVision hardware. */
 public class VisionIOPhotonVision implements VisionIO {
   protected final PhotonCamera camera;
   protected final Transform3d robotToCamera;
+  private final CameraBacklogPolicy backlogPolicy =
+      new CameraBacklogPolicy(maxResultsPerCycle, maxResultAgeSeconds);
 
   /**
    * Creates a new VisionIOPhotonVision.
@@ -42,20 +48,38 @@ public class VisionIOPhotonVision implements VisionIO {
 
   @Override
   public void updateInputs(VisionIOInputs inputs) {
+    double inputsTimestamp = RobotController.getFPGATime() * 1.0e-6;
     inputs.connected = camera.isConnected();
 
     // Read new camera observations
     Set<Short> tagIds = new HashSet<>();
     List<PoseObservation> poseObservations = new LinkedList<>();
-    for (var result : camera.getAllUnreadResults()) {
+    List<TagObservation> tagObservations = new LinkedList<>();
+    List<HeadingObservation> headingObservations = new LinkedList<>();
+    var results = backlogPolicy.select(camera.getAllUnreadResults(), Timer.getFPGATimestamp());
+    inputs.processedResultCount = backlogPolicy.getProcessedCount();
+    inputs.droppedResultCount = backlogPolicy.getDroppedCount();
+    for (var result : results) {
       // Update latest target observation
       if (result.hasTargets()) {
         inputs.latestTargetObservation =
             new TargetObservation(
+                getTimestampSeconds(result),
                 Rotation2d.fromDegrees(result.getBestTarget().getYaw()),
                 Rotation2d.fromDegrees(result.getBestTarget().getPitch()));
       } else {
-        inputs.latestTargetObservation = new TargetObservation(new Rotation2d(), new Rotation2d());
+        inputs.latestTargetObservation =
+            new TargetObservation(0.0, new Rotation2d(), new Rotation2d());
+      }
+
+      // Add tag observations (PhotonVision yaw is positive to the right)
+      for (var target : result.targets) {
+        tagObservations.add(
+            new TagObservation(
+                getTimestampSeconds(result),
+                target.fiducialId,
+                -Units.degreesToRadians(target.getYaw()),
+                Units.degreesToRadians(target.getPitch())));
       }
 
       // Add pose observation
@@ -67,10 +91,17 @@ public class VisionIOPhotonVision implements VisionIO {
         Transform3d fieldToRobot = fieldToCamera.plus(robotToCamera.inverse());
         Pose3d robotPose = new Pose3d(fieldToRobot.getTranslation(), fieldToRobot.getRotation());
 
-        // Calculate average tag distance
+        // Calculate average tag distance and find the closest tag
         double totalTagDistance = 0.0;
+        double closestTagDistance = Double.POSITIVE_INFINITY;
+        int closestTagId = -1;
         for (var target : result.targets) {
-          totalTagDistance += target.bestCameraToTarget.getTranslation().getNorm();
+          double tagDistance = target.bestCameraToTarget.getTranslation().getNorm();
+          totalTagDistance += tagDistance;
+          if (tagDistance < closestTagDistance) {
+            closestTagDistance = tagDistance;
+            closestTagId = target.fiducialId;
+          }
         }
 
         // Add tag IDs
@@ -79,10 +110,14 @@ public class VisionIOPhotonVision implements VisionIO {
         // Add observation
         poseObservations.add(
             new PoseObservation(
-                result.getTimestampSeconds(), // Timestamp
+                getTimestampSeconds(result), // Timestamp
+                getPublishTimestampSeconds(result), // Publish timestamp
+                result.ntReceiveTimestampMicros * 1.0e-6, // Receive timestamp
+                inputsTimestamp, // Inputs timestamp
                 robotPose, // 3D pose estimate
                 multitagResult.estimatedPose.ambiguity, // Ambiguity
                 multitagResult.fiducialIDsUsed.size(), // Tag count
+                closestTagId, // Primary tag ID
                 totalTagDistance / result.targets.size(), // Average tag distance
                 PoseObservationType.PHOTONVISION)); // Observation type
 
@@ -92,12 +127,8 @@ public class VisionIOPhotonVision implements VisionIO {
         // Calculate robot pose
         var tagPose = aprilTagLayout.getTagPose(target.fiducialId);
         if (tagPose.isPresent()) {
-          Transform3d fieldToTarget =
-              new Transform3d(tagPose.get().getTranslation(), tagPose.get().getRotation());
           Transform3d cameraToTarget = target.bestCameraToTarget;
-          Transform3d fieldToCamera = fieldToTarget.plus(cameraToTarget.inverse());
-          Transform3d fieldToRobot = fieldToCamera.plus(robotToCamera.inverse());
-          Pose3d robotPose = new Pose3d(fieldToRobot.getTranslation(), fieldToRobot.getRotation());
+          Pose3d robotPose = getRobotPose(tagPose.get(), cameraToTarget);
 
           // Add tag ID
           tagIds.add((short) target.fiducialId);
@@ -105,12 +136,27 @@ public class VisionIOPhotonVision implements VisionIO {
           // Add observation
           poseObservations.add(
               new PoseObservation(
-                  result.getTimestampSeconds(), // Timestamp
+                  getTimestampSeconds(result), // Timestamp
+                  getPublishTimestampSeconds(result), // Publish timestamp
+                  result.ntReceiveTimestampMicros * 1.0e-6, // Receive timestamp
+                  inputsTimestamp, // Inputs timestamp
                   robotPose, // 3D pose estimate
                   target.poseAmbiguity, // Ambiguity
                   1, // Tag count
+                  target.fiducialId, // Primary tag ID
                   cameraToTarget.getTranslation().getNorm(), // Average tag distance
                   PoseObservationType.PHOTONVISION)); // Observation type
+
+          // Add heading observation from both single-tag solutions
+          headingObservations.add(
+              new HeadingObservation(
+                  getTimestampSeconds(result),
+                  robotPose.getRotation().toRotation2d(),
+                  getRobotPose(tagPose.get(), target.altCameraToTarget)
+                      .getRotation()
+                      .toRotation2d(),
+                  target.poseAmbiguity,
+                  cameraToTarget.getTranslation().getNorm()));
         }
       }
     }
@@ -121,6 +167,13 @@ public class VisionIOPhotonVision implements VisionIO {
       inputs.poseObservations[i] = poseObservations.get(i);
     }
 
+    // Save tag observations to inputs object
+    inputs.tagObservations = tagObservations.toArray(new TagObservation[tagObservations.size()]);
+
+    // Save heading observations to inputs object
+    inputs.headingObservations =
+        headingObservations.toArray(new HeadingObservation[headingObservations.size()]);
+
     // Save tag IDs to inputs objects
     inputs.tagIds = new int[tagIds.size()];
     int i = 0;
@@ -128,4 +181,25 @@ public class VisionIOPhotonVision implements VisionIO {
       inputs.tagIds[i++] = id;
     }
   }
+
+  /** Returns the robot pose implied by a camera-to-target transform for a known tag pose. */
+  private Pose3d getRobotPose(Pose3d tagPose, Transform3d cameraToTarget) {
+    Transform3d fieldToTarget = new Transform3d(tagPose.getTranslation(), tagPose.getRotation());
+    Transform3d fieldToCamera = fieldToTarget.plus(cameraToTarget.inverse());
+    Transform3d fieldToRobot = fieldToCamera.plus(robotToCamera.inverse());
+    return new Pose3d(fieldToRobot.getTranslation(), fieldToRobot.getRotation());
+  }
+
+  /**
+   * Returns the capture timestamp of a result. PhotonLib time-syncs the coprocessor, so this is
+   * already in the roboRIO timebase.
+   */
+  private double getTimestampSeconds(PhotonPipelineResult result) {
+    return result.getTimestampSeconds();
+  }
+
+  /** Returns the publish timestamp of a result, already in the roboRIO timebase. */
+  private double getPublishTimestampSeconds(PhotonPipelineResult result) {
+    return result.metadata.publishTimestampMicros * 1.0e-6;
+  }
 }
@@ -0,0 +1,286 @@
+package frc.robot.subsystems.vision;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Offline tool that fits {@link VisionStdDevTable} values from WPILOG files.
+ *
+ * <p>Each accepted vision observation logged by {@link Vision} under {@code StdDevSamples} is
+ * compared to the smoothed wheel-only odometry pose at its timestamp. The fused pose can't be used,
+ * since it already contains the observations being fit and would bias the errors low. Wheel
+ * odometry drifts, so the mean error of all observations within {@code driftWindowSeconds} is
+ * subtracted from each one first. Errors are binned by camera, primary tag ID and distance, scaled
+ * to single-tag equivalents, and the RMS error of each bin with enough samples becomes its standard
+ * deviation.
+ *
+ * <p>Usage: {@code ./gradlew fitVisionStdDevs --args="<output.json> <log.wpilog>..."}
+ */
+public class VisionStdDevFitter {
+  private static final double binWidthMeters = 0.5;
+  private static final int binCount = 14;
+  private static final int minSamplesPerBin = 20;
+  private static final int smoothingRadius = 5; // Odometry samples on each side
+  private static final double driftWindowSeconds = 2.0; // On each side
+
+  private static final String odometryKeySuffix = "Outputs/Odometry/WheelOnly";
+  private static final String samplesKeySuffix = "/StdDevSamples";
+  private static final String samplesKeyPrefix = "Outputs/Vision/";
+
+  /** Sum of squared errors for each distance bin of a camera and tag. */
+  private static class BinAccumulator {
+    final int[] counts = new int[binCount];
+    final double[] linearSquaredErrors = new double[binCount];
+    final double[] angularSquaredErrors = new double[binCount];
+  }
+
+  /** Growable primitive columns of samples from a single log. */
+  private static class Columns {
+    int size = 0;
+    double[][] values;
+
+    Columns(int width) {
+      values = new double[width][256];
+    }
+
+    void add(double... row) {
+      if (size == values[0].length) {
+        for (int i = 0; i < values.length; i++) {
+          values[i] = Arrays.copyOf(values[i], size * 2);
+        }
+      }
+      for (int i = 0; i < values.length; i++) {
+        values[i][size] = row[i];
+      }
+      size++;
+    }
+  }
+
+  private VisionStdDevFitter() {}
+
+  public static void main(String... args) throws IOException {
+    if (args.length < 2) {
+      System.out.println("Usage: VisionStdDevFitter <output.json> <log.wpilog>...");
+      return;
+    }
+
+    // Accumulate errors from every log
+    Map<String, Map<Integer, BinAccumulator>> accumulators = new TreeMap<>();
+    for (int i = 1; i < args.length; i++) {
+      processLog(args[i], accumulators);
+    }
+
+    // Write tables
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode root = mapper.createObjectNode();
+    root.put("binWidthMeters", binWidthMeters);
+    root.put("binCount", binCount);
+    ObjectNode camerasNode = root.putObject("cameras");
+    for (var camera : accumulators.entrySet()) {
+      ObjectNode cameraNode = camerasNode.putObject(camera.getKey());
+      for (var tag : camera.getValue().entrySet()) {
+        ObjectNode tagNode = cameraNode.putObject(Integer.toString(tag.getKey()));
+        ArrayNode linear = tagNode.putArray("linear");
+        ArrayNode angular = tagNode.putArray("angular");
+        BinAccumulator bins = tag.getValue();
+        for (int bin = 0; bin < binCount; bin++) {
+          if (bins.counts[bin] >= minSamplesPerBin) {
+            linear.add(Math.sqrt(bins.linearSquaredErrors[bin] / bins.counts[bin]));
+            angular.add(Math.sqrt(bins.angularSquaredErrors[bin] / bins.counts[bin]));
+          } else {
+            linear.addNull();
+            angular.addNull();
+          }
+        }
+      }
+    }
+    mapper.writerWithDefaultPrettyPrinter().writeValue(new File(args[0]), root);
+    System.out.println("Wrote vision std dev tables to " + args[0]);
+  }
+
+  private static void processLog(String path, Map<String, Map<Integer, BinAccumulator>> results)
+      throws IOException {
+    DataLogReader reader = new DataLogReader(path);
+    if (!reader.isValid()) {
+      throw new IOException("Not a valid WPILOG file: " + path);
+    }
+
+    // Stream records, keeping only odometry poses and vision samples
+    Map<Integer, String> entryNames = new HashMap<>();
+    Columns odometry = new Columns(4); // Timestamp, x, y, theta
+    Map<String, Columns> samples = new HashMap<>();
+    for (DataLogRecord record : reader) {
+      if (record.isStart()) {
+        var start = record.getStartData();
+        entryNames.put(start.entry, start.name);
+        continue;
+      }
+      if (record.isControl()) {
+        continue;
+      }
+      String name = entryNames.get(record.getEntry());
+      if (name == null) {
+        continue;
+      }
+      if (name.endsWith(odometryKeySuffix)) {
+        Pose2d pose =
+            Pose2d.struct.unpack(ByteBuffer.wrap(record.getRaw()).order(ByteOrder.LITTLE_ENDIAN));
+        odometry.add(
+            record.getTimestamp() * 1.0e-6,
+            pose.getX(),
+            pose.getY(),
+            pose.getRotation().getRadians());
+      } else if (name.endsWith(samplesKeySuffix) && name.contains(samplesKeyPrefix)) {
+        String camera =
+            name.substring(
+                name.indexOf(samplesKeyPrefix) + samplesKeyPrefix.length(),
+                name.length() - samplesKeySuffix.length());
+        double[] values = record.getDoubleArray();
+        int stride = Vision.stdDevSampleStride;
+        Columns columns = samples.computeIfAbsent(camera, key -> new Columns(stride));
+        for (int i = 0; i + stride <= values.length; i += stride) {
+          columns.add(Arrays.copyOfRange(values, i, i + stride));
+        }
+      }
+    }
+    if (odometry.size < 2 * smoothingRadius + 2) {
+      System.out.println("Skipping " + path + ", not enough odometry data");
+      return;
+    }
+    double[][] smoothed = smooth(odometry);
+
+    // Compare each sample to the smoothed odometry pose
+    String[] cameras = samples.keySet().toArray(new String[0]);
+    Columns errors = new Columns(8); // Timestamp, x, y, theta, tag count, tag ID, distance, camera
+    for (int camera = 0; camera < cameras.length; camera++) {
+      Columns columns = samples.get(cameras[camera]);
+      for (int i = 0; i < columns.size; i++) {
+        double timestamp = columns.values[0][i];
+        int index = Arrays.binarySearch(smoothed[0], 0, odometry.size, timestamp);
+        int upper = index >= 0 ? index : -index - 1;
+        if (upper <= 0 || upper >= odometry.size) {
+          continue; // Outside of odometry data
+        }
+        int lower = upper - 1;
+        double t =
+            (timestamp - smoothed[0][lower]) / (smoothed[0][upper] - smoothed[0][lower]);
+        double referenceX = smoothed[1][lower] + t * (smoothed[1][upper] - smoothed[1][lower]);
+        double referenceY = smoothed[2][lower] + t * (smoothed[2][upper] - smoothed[2][lower]);
+        double referenceTheta =
+            smoothed[3][lower] + t * (smoothed[3][upper] - smoothed[3][lower]);
+        errors.add(
+            timestamp,
+            columns.values[1][i] - referenceX,
+            columns.values[2][i] - referenceY,
+            MathUtil.angleModulus(columns.values[3][i] - referenceTheta),
+            columns.values[4][i],
+            columns.values[5][i],
+            columns.values[6][i],
+            camera);
+      }
+    }
+    double[][] drift = windowMeans(errors);
+
+    // Bin the errors with drift removed
+    for (int i = 0; i < errors.size; i++) {
+      int tagId = (int) errors.values[5][i];
+      if (tagId < 0) {
+        continue;
+      }
+
+      // Scale errors to single-tag equivalents (std dev model divides by tag count)
+      double tagCount = Math.max(errors.values[4][i], 1.0);
+      double dx = (errors.values[1][i] - drift[0][i]) * tagCount;
+      double dy = (errors.values[2][i] - drift[1][i]) * tagCount;
+      double dTheta = MathUtil.angleModulus(errors.values[3][i] - drift[2][i]) * tagCount;
+
+      int bin = Math.min((int) (errors.values[6][i] / binWidthMeters), binCount - 1);
+      BinAccumulator bins =
+          results
+              .computeIfAbsent(cameras[(int) errors.values[7][i]], key -> new TreeMap<>())
+              .computeIfAbsent(tagId, key -> new BinAccumulator());
+      bins.counts[bin]++;
+      bins.linearSquaredErrors[bin] += (dx * dx + dy * dy) / 2.0; // Per axis
+      bins.angularSquaredErrors[bin] += dTheta * dTheta;
+    }
+  }
+
+  /**
+   * Returns the mean x, y and theta error of all samples within the drift window of each sample,
+   * which estimates the wheel odometry drift at that time.
+   */
+  private static double[][] windowMeans(Columns errors) {
+    int size = errors.size;
+    Integer[] order = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(errors.values[0][a], errors.values[0][b]));
+
+    // Prefix sums in time order
+    double[][] sums = new double[3][size + 1];
+    for (int i = 0; i < size; i++) {
+      for (int column = 0; column < 3; column++) {
+        sums[column][i + 1] = sums[column][i] + errors.values[column + 1][order[i]];
+      }
+    }
+
+    // Slide the window over the sorted samples
+    double[][] means = new double[3][size];
+    int start = 0;
+    int end = 0;
+    for (int i = 0; i < size; i++) {
+      double timestamp = errors.values[0][order[i]];
+      while (errors.values[0][order[start]] < timestamp - driftWindowSeconds) {
+        start++;
+      }
+      while (end < size && errors.values[0][order[end]] <= timestamp + driftWindowSeconds) {
+        end++;
+      }
+      for (int column = 0; column < 3; column++) {
+        means[column][order[i]] = (sums[column][end] - sums[column][start]) / (end - start);
+      }
+    }
+    return means;
+  }
+
+  /** Returns odometry columns smoothed with a centered moving average. */
+  private static double[][] smooth(Columns odometry) {
+    int size = odometry.size;
+
+    // Unwrap heading so it can be averaged
+    double[] theta = Arrays.copyOf(odometry.values[3], size);
+    for (int i = 1; i < size; i++) {
+      theta[i] = theta[i - 1] + MathUtil.angleModulus(theta[i] - theta[i - 1]);
+    }
+
+    double[][] smoothed = new double[4][size];
+    smoothed[0] = Arrays.copyOf(odometry.values[0], size);
+    double[][] sources = {odometry.values[1], odometry.values[2], theta};
+    for (int column = 0; column < 3; column++) {
+      for (int i = 0; i < size; i++) {
+        int start = Math.max(0, i - smoothingRadius);
+        int end = Math.min(size - 1, i + smoothingRadius);
+        double sum = 0.0;
+        for (int j = start; j <= end; j++) {
+          sum += sources[column][j];
+        }
+        smoothed[column + 1][i] = sum / (end - start + 1);
+      }
+    }
+    return smoothed;
+  }
+}
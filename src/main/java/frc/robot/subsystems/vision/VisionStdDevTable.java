@@ -0,0 +1,114 @@
+package frc.robot.subsystems.vision;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.subsystems.vision.VisionCameraRegistry.CameraProfile;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Learned standard deviation tables, indexed by camera, primary tag ID and distance bin.
+ *
+ * <p>Tables are produced offline by {@link VisionStdDevFitter} and loaded from {@code
+ * deploy/vision/stddev_tables.json}. Each value is the single-tag standard deviation for that tag
+ * and distance; lookups are a constant-time array index and return {@link Double#NaN} where no
+ * value was fit, so the caller can fall back to the distance-based model.
+ */
+public class VisionStdDevTable {
+  public static final String tablePath = "vision/stddev_tables.json";
+
+  private final double binWidthMeters;
+  private final int binCount;
+  private final int[] tagIdCounts; // Per camera, max tag ID + 1
+  private final double[][] linearStdDevs; // Per camera, indexed by tagId * binCount + bin
+  private final double[][] angularStdDevs;
+
+  private VisionStdDevTable(double binWidthMeters, int binCount, int cameraCount) {
+    this.binWidthMeters = binWidthMeters;
+    this.binCount = binCount;
+    tagIdCounts = new int[cameraCount];
+    linearStdDevs = new double[cameraCount][0];
+    angularStdDevs = new double[cameraCount][0];
+  }
+
+  /**
+   * Loads the tables for the given cameras from the deploy directory. Returns an empty table if
+   * the file is missing or invalid.
+   */
+  public static VisionStdDevTable load(CameraProfile[] cameras) {
+    File file = new File(Filesystem.getDeployDirectory(), tablePath);
+    if (!file.exists()) {
+      return new VisionStdDevTable(1.0, 0, cameras.length);
+    }
+    try {
+      return parse(new ObjectMapper().readTree(file), cameras);
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("Failed to load vision std dev tables " + file + ": " + e);
+      return new VisionStdDevTable(1.0, 0, cameras.length);
+    }
+  }
+
+  private static VisionStdDevTable parse(JsonNode root, CameraProfile[] cameras) {
+    double binWidthMeters = root.path("binWidthMeters").asDouble(0.0);
+    int binCount = root.path("binCount").asInt(0);
+    if (binWidthMeters <= 0.0 || binCount <= 0) {
+      throw new IllegalArgumentException("Invalid bin configuration");
+    }
+    VisionStdDevTable table = new VisionStdDevTable(binWidthMeters, binCount, cameras.length);
+
+    for (int cameraIndex = 0; cameraIndex < cameras.length; cameraIndex++) {
+      JsonNode cameraNode = root.path("cameras").path(cameras[cameraIndex].name());
+
+      // Find the largest tag ID to size the arrays
+      int maxTagId = -1;
+      for (Iterator<String> it = cameraNode.fieldNames(); it.hasNext(); ) {
+        maxTagId = Math.max(maxTagId, Integer.parseInt(it.next()));
+      }
+      int tagIdCount = maxTagId + 1;
+      table.tagIdCounts[cameraIndex] = tagIdCount;
+      table.linearStdDevs[cameraIndex] = new double[tagIdCount * binCount];
+      table.angularStdDevs[cameraIndex] = new double[tagIdCount * binCount];
+      Arrays.fill(table.linearStdDevs[cameraIndex], Double.NaN);
+      Arrays.fill(table.angularStdDevs[cameraIndex], Double.NaN);
+
+      // Copy values, leaving missing entries as NaN
+      for (Iterator<Map.Entry<String, JsonNode>> it = cameraNode.fields(); it.hasNext(); ) {
+        var entry = it.next();
+        int tagId = Integer.parseInt(entry.getKey());
+        JsonNode linear = entry.getValue().path("linear");
+        JsonNode angular = entry.getValue().path("angular");
+        for (int bin = 0; bin < binCount; bin++) {
+          if (linear.path(bin).isNumber()) {
+            table.linearStdDevs[cameraIndex][tagId * binCount + bin] = linear.get(bin).asDouble();
+          }
+          if (angular.path(bin).isNumber()) {
+            table.angularStdDevs[cameraIndex][tagId * binCount + bin] = angular.get(bin).asDouble();
+          }
+        }
+      }
+    }
+    return table;
+  }
+
+  /** Returns the learned linear std dev in meters, or NaN if no value is available. */
+  public double getLinearStdDev(int cameraIndex, int tagId, double distanceMeters) {
+    return lookup(linearStdDevs, cameraIndex, tagId, distanceMeters);
+  }
+
+  /** Returns the learned angular std dev in radians, or NaN if no value is available. */
+  public double getAngularStdDev(int cameraIndex, int tagId, double distanceMeters) {
+    return lookup(angularStdDevs, cameraIndex, tagId, distanceMeters);
+  }
+
+  private double lookup(double[][] values, int cameraIndex, int tagId, double distanceMeters) {
+    if (tagId < 0 || tagId >= tagIdCounts[cameraIndex]) {
+      return Double.NaN;
+    }
+    int bin = Math.min((int) (Math.max(distanceMeters, 0.0) / binWidthMeters), binCount - 1);
+    return values[cameraIndex][tagId * binCount + bin];
+  }
+}
@@ -0,0 +1,201 @@
+package frc.robot.util;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.littletonrobotics.junction.Logger;
+import org.littletonrobotics.junction.networktables.LoggedNetworkBoolean;
+
+/**
+ * Times sections of the robot loop and logs rolling percentiles for each.
+ *
+ * <p>Subsystems time their own periodic methods with a {@link Section}. The scheduler phases are
+ * split using markers: a subsystem registered after all others marks the end of the subsystem
+ * periodics, a binding added after all others marks the end of the button loop, and each command's
+ * execute callback marks the end of that command. Command times therefore include the scheduler's
+ * bookkeeping for that command. Commands are timed per instance, since many share a default name
+ * like {@code RunCommand}; repeated names are numbered in the order the commands first run.
+ *
+ * <p>Profiling is toggled at runtime from the dashboard. The toggle is read once per cycle, and
+ * when it is off each timing call is a single branch.
+ */
+public final class LoopProfiler {
+  private static final int windowSize = 250; // Samples per section, 5 seconds at 50 Hz
+  private static final double publishPeriodSeconds = 1.0;
+
+  private static final LoggedNetworkBoolean enabledInput =
+      new LoggedNetworkBoolean("Tuning/LoopProfiler/Enabled", false);
+  private static boolean enabled = false;
+  private static double lastPublishTimestamp = 0.0;
+
+  private static final List<Section> sections = new ArrayList<>();
+  private static final Map<Command, Section> commandSections = new IdentityHashMap<>();
+  private static final Map<String, Integer> commandNameCounts = new HashMap<>();
+  private static final Section cycleSection = section("Robot/Periodic");
+  private static final Section schedulerSection = section("Scheduler/Total");
+  private static final Section subsystemsSection = section("Scheduler/Subsystems");
+  private static final Section buttonsSection = section("Scheduler/Buttons");
+  private static final long[] sortScratch = new long[windowSize];
+  private static long lastMarkMicros = 0;
+
+  private LoopProfiler() {}
+
+  /** A timed section of the loop, holding a rolling window of durations. */
+  public static final class Section {
+    private final String p50Key;
+    private final String p95Key;
+    private final String p99Key;
+    private final String maxKey;
+    private final long[] samples = new long[windowSize];
+    private int head = 0;
+    private int size = 0;
+    private long startMicros = 0;
+
+    private Section(String name) {
+      String prefix = "LoopProfiler/" + name;
+      p50Key = prefix + "/P50Ms";
+      p95Key = prefix + "/P95Ms";
+      p99Key = prefix + "/P99Ms";
+      maxKey = prefix + "/MaxMs";
+    }
+
+    /** Marks the start of the section. */
+    public void start() {
+      if (enabled) {
+        startMicros = Logger.getRealTimestamp();
+      }
+    }
+
+    /** Marks the end of the section and records its duration. */
+    public void stop() {
+      if (enabled && startMicros != 0) {
+        record(Logger.getRealTimestamp() - startMicros);
+        startMicros = 0;
+      }
+    }
+
+    private void record(long durationMicros) {
+      samples[head] = durationMicros;
+      head = (head + 1) % windowSize;
+      size = Math.min(size + 1, windowSize);
+    }
+
+    private void reset() {
+      head = 0;
+      size = 0;
+      startMicros = 0;
+    }
+
+    private void publish() {
+      if (size == 0) {
+        return;
+      }
+      System.arraycopy(samples, 0, sortScratch, 0, size);
+      Arrays.sort(sortScratch, 0, size);
+      Logger.recordOutput(p50Key, percentileMs(0.5));
+      Logger.recordOutput(p95Key, percentileMs(0.95));
+      Logger.recordOutput(p99Key, percentileMs(0.99));
+      Logger.recordOutput(maxKey, sortScratch[size - 1] * 1.0e-3);
+    }
+
+    private double percentileMs(double percentile) {
+      int index = (int) Math.ceil(percentile * size) - 1;
+      return sortScratch[Math.max(index, 0)] * 1.0e-3;
+    }
+  }
+
+  /**
+   * Creates a new section, logged under "LoopProfiler/{name}".
+   *
+   * @param name The name of the section.
+   */
+  public static Section section(String name) {
+    Section section = new Section(name);
+    sections.add(section);
+    return section;
+  }
+
+  /**
+   * Adds the scheduler markers. Call once after all subsystems and button bindings are created, so
+   * that the markers run after them.
+   */
+  public static void install() {
+    CommandScheduler scheduler = CommandScheduler.getInstance();
+    scheduler.registerSubsystem(
+        new Subsystem() {
+          @Override
+          public void periodic() {
+            mark(subsystemsSection);
+          }
+        });
+    scheduler.getDefaultButtonLoop().bind(() -> mark(buttonsSection));
+    scheduler.onCommandExecute(LoopProfiler::markCommand);
+  }
+
+  /** Reads the toggle and starts timing the cycle. Call before running the scheduler. */
+  public static void beginCycle() {
+    boolean wasEnabled = enabled;
+    enabled = enabledInput.get();
+    if (enabled && !wasEnabled) {
+      for (var section : sections) {
+        section.reset();
+      }
+    }
+    if (enabled) {
+      cycleSection.start();
+      schedulerSection.start();
+      lastMarkMicros = Logger.getRealTimestamp();
+    }
+  }
+
+  /** Stops timing the scheduler. Call after running the scheduler. */
+  public static void endScheduler() {
+    schedulerSection.stop();
+  }
+
+  /** Stops timing the cycle and periodically publishes percentiles. Call at the end of a cycle. */
+  public static void endCycle() {
+    cycleSection.stop();
+    if (!enabled) {
+      return;
+    }
+    double timestamp = Timer.getFPGATimestamp();
+    if (timestamp - lastPublishTimestamp >= publishPeriodSeconds) {
+      lastPublishTimestamp = timestamp;
+      for (var section : sections) {
+        section.publish();
+      }
+    }
+  }
+
+  private static void markCommand(Command command) {
+    if (!enabled) {
+      return;
+    }
+    Section section = commandSections.get(command);
+    if (section == null) {
+      String name = command.getName();
+      int count = commandNameCounts.merge(name, 1, Integer::sum);
+      section = section("Commands/" + (count > 1 ? name + "_" + count : name));
+      commandSections.put(command, section);
+    }
+    mark(section);
+  }
+
+  /** Records the time since the last marker for a section. */
+  private static void mark(Section section) {
+    if (!enabled) {
+      return;
+    }
+    long timestampMicros = Logger.getRealTimestamp();
+    section.record(timestampMicros - lastMarkMicros);
+    lastMarkMicros = timestampMicros;
+  }
+}
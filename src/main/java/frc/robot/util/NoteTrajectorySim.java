@@ -0,0 +1,208 @@
+package frc.robot.util;
+
+import static frc.robot.subsystems.shooter.ShooterConstants.*;
+
+import edu.wpi.first.math.geometry.Translation3d;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Point mass simulation of a note in flight.
+ *
+ * <p>The note leaves the shooter at a fixed pitch, with the robot's velocity added to its launch
+ * velocity, and is integrated with RK4 under gravity and quadratic drag. The target is a horizontal
+ * circular opening. A shot hits if the note falls through the opening's height within its radius,
+ * less the note's clearance. Simulation only uses locals, so one instance can be shared across
+ * threads.
+ */
+public class NoteTrajectorySim {
+  private static final double gravity = 9.80665;
+  private static final double maxTimeSeconds = 3.0;
+
+  /** The outcome of a simulated shot. */
+  public static record Result(
+      boolean hit, double missDistance, double timeOfFlight, double apexHeight) {}
+
+  private final double launchHeight;
+  private final double launchPitch;
+  private final double dragFactor;
+  private final double targetHeight;
+  private final double targetRadius;
+  private final double timeStep;
+
+  /**
+   * Creates a new NoteTrajectorySim.
+   *
+   * @param launchHeight The height the note leaves the shooter at, in meters.
+   * @param launchPitch The launch angle above horizontal, in radians.
+   * @param dragFactor Drag deceleration over speed squared, 0.5 * rho * Cd * A / m, in 1/meters.
+   * @param targetHeight The height of the target opening, in meters.
+   * @param targetRadius The radius the note's center must pass within, in meters.
+   * @param timeStep The integration step, in seconds.
+   */
+  public NoteTrajectorySim(
+      double launchHeight,
+      double launchPitch,
+      double dragFactor,
+      double targetHeight,
+      double targetRadius,
+      double timeStep) {
+    this.launchHeight = launchHeight;
+    this.launchPitch = launchPitch;
+    this.dragFactor = dragFactor;
+    this.targetHeight = targetHeight;
+    this.targetRadius = targetRadius;
+    this.timeStep = timeStep;
+  }
+
+  /** Creates a simulator from the shooter constants. */
+  public static NoteTrajectorySim fromConstants() {
+    return new NoteTrajectorySim(
+        noteLaunchHeightMeters,
+        noteLaunchPitchRadians,
+        noteDragFactor,
+        targetHeightMeters,
+        targetRadiusMeters,
+        noteSimTimeStepSeconds);
+  }
+
+  /** Returns the note exit speed in meters per second for a flywheel speed in rad/sec. */
+  public static double getExitSpeed(double flywheelRadPerSec) {
+    return flywheelRadPerSec * flywheelRadiusMeters * noteExitSpeedFactor;
+  }
+
+  /**
+   * Simulates a shot. All values are in the field frame.
+   *
+   * @param robotX The robot x position.
+   * @param robotY The robot y position.
+   * @param velocityX The robot x velocity.
+   * @param velocityY The robot y velocity.
+   * @param heading The direction the shooter faces, in radians.
+   * @param exitSpeed The note speed relative to the robot, in meters per second.
+   * @param targetX The target x position.
+   * @param targetY The target y position.
+   */
+  public Result simulate(
+      double robotX,
+      double robotY,
+      double velocityX,
+      double velocityY,
+      double heading,
+      double exitSpeed,
+      double targetX,
+      double targetY) {
+    return fly(robotX, robotY, velocityX, velocityY, heading, exitSpeed, targetX, targetY, null);
+  }
+
+  /** Returns the path of a shot, sampled every {@code sampleSteps} integration steps. */
+  public Translation3d[] trajectory(
+      double robotX,
+      double robotY,
+      double velocityX,
+      double velocityY,
+      double heading,
+      double exitSpeed,
+      double targetX,
+      double targetY,
+      int sampleSteps) {
+    List<Translation3d> path = new ArrayList<>();
+    fly(
+        robotX,
+        robotY,
+        velocityX,
+        velocityY,
+        heading,
+        exitSpeed,
+        targetX,
+        targetY,
+        (step, x, y, z) -> {
+          if (step % sampleSteps == 0) {
+            path.add(new Translation3d(x, y, z));
+          }
+        });
+    return path.toArray(new Translation3d[0]);
+  }
+
+  private static interface StepListener {
+    void accept(int step, double x, double y, double z);
+  }
+
+  private Result fly(
+      double robotX,
+      double robotY,
+      double velocityX,
+      double velocityY,
+      double heading,
+      double exitSpeed,
+      double targetX,
+      double targetY,
+      StepListener listener) {
+    // State is x, y, z, vx, vy, vz
+    double horizontalSpeed = exitSpeed * Math.cos(launchPitch);
+    double[] state = {
+      robotX,
+      robotY,
+      launchHeight,
+      horizontalSpeed * Math.cos(heading) + velocityX,
+      horizontalSpeed * Math.sin(heading) + velocityY,
+      exitSpeed * Math.sin(launchPitch)
+    };
+    double[] next = new double[6];
+    double[][] k = new double[4][6];
+    double[] scratch = new double[6];
+    double apex = launchHeight;
+
+    int steps = (int) Math.ceil(maxTimeSeconds / timeStep);
+    for (int step = 0; step < steps; step++) {
+      if (listener != null) {
+        listener.accept(step, state[0], state[1], state[2]);
+      }
+      integrate(state, next, k, scratch);
+      apex = Math.max(apex, next[2]);
+
+      // Check for the note falling through the target height
+      if (next[5] < 0.0 && state[2] >= targetHeight && next[2] < targetHeight) {
+        double fraction = (state[2] - targetHeight) / (state[2] - next[2]);
+        double crossingX = state[0] + (next[0] - state[0]) * fraction;
+        double crossingY = state[1] + (next[1] - state[1]) * fraction;
+        double miss = Math.hypot(crossingX - targetX, crossingY - targetY);
+        if (listener != null) {
+          listener.accept(step + 1, crossingX, crossingY, targetHeight);
+        }
+        return new Result(miss <= targetRadius, miss, (step + fraction) * timeStep, apex);
+      }
+      if (next[2] < 0.0) {
+        break; // Hit the floor
+      }
+      System.arraycopy(next, 0, state, 0, 6);
+    }
+    return new Result(false, Double.POSITIVE_INFINITY, Double.NaN, apex);
+  }
+
+  /** Advances the state by one step with RK4. */
+  private void integrate(double[] state, double[] next, double[][] k, double[] scratch) {
+    derivative(state, k[0]);
+    for (int stage = 1; stage < 4; stage++) {
+      double scale = stage == 3 ? timeStep : timeStep / 2.0;
+      for (int i = 0; i < 6; i++) {
+        scratch[i] = state[i] + k[stage - 1][i] * scale;
+      }
+      derivative(scratch, k[stage]);
+    }
+    for (int i = 0; i < 6; i++) {
+      next[i] = state[i] + timeStep / 6.0 * (k[0][i] + 2.0 * k[1][i] + 2.0 * k[2][i] + k[3][i]);
+    }
+  }
+
+  private void derivative(double[] state, double[] out) {
+    double speed = Math.sqrt(state[3] * state[3] + state[4] * state[4] + state[5] * state[5]);
+    double drag = dragFactor * speed;
+    out[0] = state[3];
+    out[1] = state[4];
+    out[2] = state[5];
+    out[3] = -drag * state[3];
+    out[4] = -drag * state[4];
+    out[5] = -drag * state[5] - gravity;
+  }
+}
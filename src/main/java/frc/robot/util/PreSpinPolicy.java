@@ -0,0 +1,99 @@
+package frc.robot.util;
+
+import static frc.robot.subsystems.shooter.ShooterConstants.*;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+import java.util.function.DoubleUnaryOperator;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Chooses a flywheel speed to spin up to while holding a note, before a shot is requested.
+ *
+ * <p>The robot's position is projected ahead by its velocity, and the flywheel is sent toward the
+ * expected shot speed at that distance. The speed fades to zero between the full and start
+ * distances. Speed is only ever added: whenever the goal falls below the measured flywheel speed,
+ * the policy returns zero so the flywheel coasts down instead of being braked by the controller.
+ * Acceleration is limited to what the current budget can provide, and the budget shrinks as the
+ * battery sags, reaching zero at the minimum voltage or during a brownout.
+ */
+public class PreSpinPolicy {
+  private final DoubleUnaryOperator shotSpeed;
+  private final double maxAcceleration;
+  private double speed = 0.0;
+  private double lastTimestamp = 0.0;
+
+  /**
+   * Creates a new PreSpinPolicy.
+   *
+   * @param shotSpeed The expected flywheel speed in radians per second for a distance in meters.
+   */
+  public PreSpinPolicy(DoubleUnaryOperator shotSpeed) {
+    this.shotSpeed = shotSpeed;
+    maxAcceleration = shootMotorGearbox.KtNMPerAmp * preSpinCurrentBudgetAmps / dcMotorMOI;
+  }
+
+  /** Restarts from the current flywheel velocity. */
+  public void reset(double velocityRadPerSec) {
+    speed = Math.max(velocityRadPerSec, 0.0);
+    lastTimestamp = Timer.getTimestamp();
+  }
+
+  /**
+   * Returns the flywheel speed to command, or zero to let it coast.
+   *
+   * @param robot The robot position.
+   * @param fieldVelocity The robot velocity in the field frame.
+   * @param target The target position.
+   * @param measuredRadPerSec The measured flywheel velocity.
+   */
+  public double calculate(
+      Translation2d robot,
+      ChassisSpeeds fieldVelocity,
+      Translation2d target,
+      double measuredRadPerSec) {
+    double timestamp = Timer.getTimestamp();
+    double dt = MathUtil.clamp(timestamp - lastTimestamp, 0.0, 0.1);
+    lastTimestamp = timestamp;
+
+    // Predict the distance when a shot is likely
+    double predictedX = robot.getX() + fieldVelocity.vxMetersPerSecond * preSpinLookaheadSeconds;
+    double predictedY = robot.getY() + fieldVelocity.vyMetersPerSecond * preSpinLookaheadSeconds;
+    double distance = Math.hypot(target.getX() - predictedX, target.getY() - predictedY);
+    double weight =
+        MathUtil.clamp(
+            (preSpinStartDistanceMeters - distance)
+                / (preSpinStartDistanceMeters - preSpinFullDistanceMeters),
+            0.0,
+            1.0);
+    double goal = weight > 0.0 ? weight * shotSpeed.applyAsDouble(distance) : 0.0;
+
+    // Limit acceleration by the current budget, scaled down as the battery sags
+    double batteryScale =
+        RobotController.isBrownedOut()
+            ? 0.0
+            : MathUtil.clamp(
+                (RobotController.getBatteryVoltage() - preSpinMinBatteryVolts)
+                    / (preSpinFullBatteryVolts - preSpinMinBatteryVolts),
+                0.0,
+                1.0);
+    boolean coasting =
+        batteryScale == 0.0 || goal < measuredRadPerSec - preSpinCoastMarginRadPerSec;
+    if (coasting) {
+      // Let the flywheel slow down on its own, and ramp up from wherever it ends up
+      speed = Math.max(measuredRadPerSec, 0.0);
+    } else {
+      speed = Math.min(speed + maxAcceleration * batteryScale * dt, goal);
+    }
+
+    Logger.recordOutput("PreSpin/PredictedDistance", distance);
+    Logger.recordOutput("PreSpin/GoalRadPerSec", goal);
+    Logger.recordOutput("PreSpin/SpeedRadPerSec", speed);
+    Logger.recordOutput("PreSpin/BatteryScale", batteryScale);
+    Logger.recordOutput("PreSpin/Coasting", coasting);
+    return coasting ? 0.0 : speed;
+  }
+}
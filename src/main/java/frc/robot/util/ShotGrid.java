@@ -0,0 +1,193 @@
+package frc.robot.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.wpi.first.wpilibj.Filesystem;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Shot settings over a uniform grid of distance to the target and radial robot velocity.
+ *
+ * <p>Each grid point holds the target-relative aim offset, flywheel speed and note time of flight.
+ * Radial velocity is positive when moving away from the target. Tangential velocity is handled
+ * separately by {@link #getLeadAngle}, which aims against the sideways drift the note inherits.
+ * Lookups are constant-time bilinear interpolation, clamped to the edges of the grid.
+ *
+ * <p>Grids are produced offline by {@link ShotGridFitter} and loaded from {@code
+ * deploy/shooter/shot_grid.json}.
+ */
+public final class ShotGrid {
+  public static final String gridPath = "shooter/shot_grid.json";
+
+  /** A grid with no points. */
+  public static final ShotGrid empty =
+      new ShotGrid(0.0, 1.0, 0, 0.0, 1.0, 0, new double[0], new double[0], new double[0]);
+
+  private final double minDistance;
+  private final double distanceStep;
+  private final int distanceCount;
+  private final double minRadialVelocity;
+  private final double radialVelocityStep;
+  private final int radialVelocityCount;
+  private final double[] angleOffsets; // Indexed by distance * radialVelocityCount + velocity
+  private final double[] speeds;
+  private final double[] timesOfFlight;
+
+  /**
+   * Creates a new ShotGrid. Value arrays are indexed by {@code distanceIndex * radialVelocityCount
+   * + radialVelocityIndex} and are not copied.
+   */
+  public ShotGrid(
+      double minDistance,
+      double distanceStep,
+      int distanceCount,
+      double minRadialVelocity,
+      double radialVelocityStep,
+      int radialVelocityCount,
+      double[] angleOffsets,
+      double[] speeds,
+      double[] timesOfFlight) {
+    int size = distanceCount * radialVelocityCount;
+    if (angleOffsets.length != size || speeds.length != size || timesOfFlight.length != size) {
+      throw new IllegalArgumentException("Shot grid values do not match the grid size");
+    }
+    if (distanceStep <= 0.0 || radialVelocityStep <= 0.0) {
+      throw new IllegalArgumentException("Shot grid steps must be positive");
+    }
+    this.minDistance = minDistance;
+    this.distanceStep = distanceStep;
+    this.distanceCount = distanceCount;
+    this.minRadialVelocity = minRadialVelocity;
+    this.radialVelocityStep = radialVelocityStep;
+    this.radialVelocityCount = radialVelocityCount;
+    this.angleOffsets = angleOffsets;
+    this.speeds = speeds;
+    this.timesOfFlight = timesOfFlight;
+  }
+
+  /** Loads the grid from the deploy directory. Returns an empty grid if the file is missing. */
+  public static ShotGrid load() {
+    File file = new File(Filesystem.getDeployDirectory(), gridPath);
+    if (!file.exists()) {
+      return empty;
+    }
+    try {
+      JsonNode root = new ObjectMapper().readTree(file);
+      return new ShotGrid(
+          root.path("minDistance").asDouble(),
+          root.path("distanceStep").asDouble(),
+          root.path("distanceCount").asInt(),
+          root.path("minRadialVelocity").asDouble(),
+          root.path("radialVelocityStep").asDouble(),
+          root.path("radialVelocityCount").asInt(),
+          toArray(root.path("angleOffsets")),
+          toArray(root.path("speeds")),
+          toArray(root.path("timesOfFlight")));
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("Failed to load shot grid " + file + ": " + e);
+      return empty;
+    }
+  }
+
+  private static double[] toArray(JsonNode node) {
+    double[] values = new double[node.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = node.get(i).asDouble();
+    }
+    return values;
+  }
+
+  /** Returns whether the grid has no points. */
+  public boolean isEmpty() {
+    return distanceCount == 0 || radialVelocityCount == 0;
+  }
+
+  /** Returns the target-relative aim offset in radians, positive counterclockwise. */
+  public double getAngleOffset(double distance, double radialVelocity) {
+    return interpolate(angleOffsets, distance, radialVelocity);
+  }
+
+  /** Returns the flywheel speed in radians per second. */
+  public double getSpeed(double distance, double radialVelocity) {
+    return interpolate(speeds, distance, radialVelocity);
+  }
+
+  /** Returns the note time of flight in seconds. */
+  public double getTimeOfFlight(double distance, double radialVelocity) {
+    return interpolate(timesOfFlight, distance, radialVelocity);
+  }
+
+  /**
+   * Returns the robot velocity away from the target.
+   *
+   * @param directionX The x component of the unit vector from the robot to the target.
+   * @param directionY The y component of the unit vector from the robot to the target.
+   * @param velocityX The robot x velocity in the field frame.
+   * @param velocityY The robot y velocity in the field frame.
+   */
+  public static double getRadialVelocity(
+      double directionX, double directionY, double velocityX, double velocityY) {
+    return -(velocityX * directionX + velocityY * directionY);
+  }
+
+  /**
+   * Returns the robot velocity perpendicular to the target, positive when moving counterclockwise
+   * around it.
+   *
+   * @param directionX The x component of the unit vector from the robot to the target.
+   * @param directionY The y component of the unit vector from the robot to the target.
+   * @param velocityX The robot x velocity in the field frame.
+   * @param velocityY The robot y velocity in the field frame.
+   */
+  public static double getTangentialVelocity(
+      double directionX, double directionY, double velocityX, double velocityY) {
+    return velocityX * directionY - velocityY * directionX;
+  }
+
+  /**
+   * Returns the aim offset that cancels the note's sideways drift from tangential robot velocity.
+   * Moving counterclockwise around the target carries the note clockwise of where it is aimed, so
+   * the lead is counterclockwise.
+   *
+   * @param distance The distance to the target.
+   * @param tangentialVelocity The robot velocity perpendicular to the target, positive when moving
+   *     counterclockwise around it (see {@link #getTangentialVelocity}).
+   * @param timeOfFlight The note time of flight.
+   * @return The aim offset in radians, positive counterclockwise.
+   */
+  public static double getLeadAngle(
+      double distance, double tangentialVelocity, double timeOfFlight) {
+    return Math.atan2(tangentialVelocity * timeOfFlight, distance);
+  }
+
+  private double interpolate(double[] values, double distance, double radialVelocity) {
+    if (isEmpty()) {
+      throw new IllegalStateException("Shot grid is empty!");
+    }
+
+    // Find the cell and the position within it on each axis
+    double distancePosition = clamp((distance - minDistance) / distanceStep, distanceCount - 1);
+    double velocityPosition =
+        clamp((radialVelocity - minRadialVelocity) / radialVelocityStep, radialVelocityCount - 1);
+    int distanceIndex = Math.min((int) distancePosition, Math.max(distanceCount - 2, 0));
+    int velocityIndex = Math.min((int) velocityPosition, Math.max(radialVelocityCount - 2, 0));
+    double distanceFraction = distancePosition - distanceIndex;
+    double velocityFraction = velocityPosition - velocityIndex;
+    int nextDistance = distanceCount > 1 ? radialVelocityCount : 0;
+    int nextVelocity = radialVelocityCount > 1 ? 1 : 0;
+
+    // Bilinear interpolation
+    int index = distanceIndex * radialVelocityCount + velocityIndex;
+    double low = values[index] + (values[index + nextVelocity] - values[index]) * velocityFraction;
+    double high =
+        values[index + nextDistance]
+            + (values[index + nextDistance + nextVelocity] - values[index + nextDistance])
+                * velocityFraction;
+    return low + (high - low) * distanceFraction;
+  }
+
+  private static double clamp(double position, int max) {
+    return Math.max(0.0, Math.min(position, max));
+  }
+}
@@ -0,0 +1,199 @@
+package frc.robot.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Offline tool that fits a {@link ShotGrid} from recorded shots.
+ *
+ * <p>Each sample row is {@code distance,radialVelocity,angleOffset,speed,timeOfFlight} for a shot
+ * that scored. Every grid point is fit by locally weighted linear regression over the samples,
+ * with a Gaussian kernel one grid step wide on each axis, so the grid smooths noisy shots and
+ * extrapolates linearly past the edges of the data. Lines starting with '#' or a letter are
+ * skipped. Files written by {@link ShotRecorder} can be passed directly: when a header has an
+ * {@code outcome} column, only rows recorded as hits are used. Rows with a value that isn't finite,
+ * such as a manual shot whose flight wasn't timed, are skipped.
+ *
+ * <p>Usage: {@code ./gradlew fitShotGrid --args="<output.json> <samples.csv>..."}
+ */
+public class ShotGridFitter {
+  private static final int distanceCount = 16;
+  private static final int radialVelocityCount = 9;
+  private static final double minRadialVelocityRange = 1.0; // Meters per second
+  private static final int columnCount = 5;
+
+  private ShotGridFitter() {}
+
+  public static void main(String... args) throws IOException {
+    if (args.length < 2) {
+      System.out.println("Usage: ShotGridFitter <output.json> <samples.csv>...");
+      return;
+    }
+
+    // Read samples into primitive columns
+    double[][] samples = new double[columnCount][256];
+    int sampleCount = 0;
+    for (int i = 1; i < args.length; i++) {
+      List<String> lines = Files.readAllLines(new File(args[i]).toPath());
+      int outcomeColumn = -1;
+      for (String line : lines) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        if (Character.isLetter(line.charAt(0))) {
+          outcomeColumn = Arrays.asList(line.split(",")).indexOf("outcome");
+          continue;
+        }
+        String[] fields = line.split(",");
+        if (fields.length < Math.max(columnCount, outcomeColumn + 1)) {
+          System.out.println("Skipping malformed row in " + args[i] + ": " + line);
+          continue;
+        }
+        if (outcomeColumn >= 0
+            && !fields[outcomeColumn].trim().equals(ShotRecorder.Outcome.HIT.name())) {
+          continue;
+        }
+        if (sampleCount == samples[0].length) {
+          for (int column = 0; column < columnCount; column++) {
+            samples[column] = Arrays.copyOf(samples[column], sampleCount * 2);
+          }
+        }
+        boolean finite = true;
+        for (int column = 0; column < columnCount; column++) {
+          samples[column][sampleCount] = Double.parseDouble(fields[column].trim());
+          finite &= Double.isFinite(samples[column][sampleCount]);
+        }
+        if (finite) {
+          sampleCount++;
+        }
+      }
+    }
+    if (sampleCount < 3) {
+      System.out.println("Need at least 3 samples, found " + sampleCount);
+      return;
+    }
+    double[] distances = Arrays.copyOf(samples[0], sampleCount);
+    double[] velocities = Arrays.copyOf(samples[1], sampleCount);
+
+    // Span the grid over the sampled range
+    double minDistance = Arrays.stream(distances).min().getAsDouble();
+    double maxDistance = Arrays.stream(distances).max().getAsDouble();
+    double minVelocity = Arrays.stream(velocities).min().getAsDouble();
+    double maxVelocity = Arrays.stream(velocities).max().getAsDouble();
+    if (maxVelocity - minVelocity < minRadialVelocityRange) {
+      double center = (maxVelocity + minVelocity) / 2.0;
+      minVelocity = center - minRadialVelocityRange / 2.0;
+      maxVelocity = center + minRadialVelocityRange / 2.0;
+    }
+    double distanceStep = Math.max(maxDistance - minDistance, 1.0e-3) / (distanceCount - 1);
+    double velocityStep = (maxVelocity - minVelocity) / (radialVelocityCount - 1);
+
+    // Fit each grid point
+    double[][] fits = new double[3][distanceCount * radialVelocityCount];
+    for (int i = 0; i < distanceCount; i++) {
+      for (int j = 0; j < radialVelocityCount; j++) {
+        double distance = minDistance + i * distanceStep;
+        double velocity = minVelocity + j * velocityStep;
+        for (int output = 0; output < 3; output++) {
+          fits[output][i * radialVelocityCount + j] =
+              fitPoint(
+                  distances,
+                  velocities,
+                  Arrays.copyOf(samples[output + 2], sampleCount),
+                  distance,
+                  velocity,
+                  distanceStep,
+                  velocityStep);
+        }
+      }
+    }
+
+    // Write grid
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode root = mapper.createObjectNode();
+    root.put("minDistance", minDistance);
+    root.put("distanceStep", distanceStep);
+    root.put("distanceCount", distanceCount);
+    root.put("minRadialVelocity", minVelocity);
+    root.put("radialVelocityStep", velocityStep);
+    root.put("radialVelocityCount", radialVelocityCount);
+    String[] keys = {"angleOffsets", "speeds", "timesOfFlight"};
+    for (int output = 0; output < 3; output++) {
+      ArrayNode values = root.putArray(keys[output]);
+      for (double value : fits[output]) {
+        values.add(value);
+      }
+    }
+    mapper.writerWithDefaultPrettyPrinter().writeValue(new File(args[0]), root);
+    System.out.println("Fit shot grid from " + sampleCount + " samples to " + args[0]);
+  }
+
+  /**
+   * Fits a value at a grid point by Gaussian-weighted linear regression, falling back to the
+   * weighted mean if the samples don't span both axes.
+   */
+  private static double fitPoint(
+      double[] distances,
+      double[] velocities,
+      double[] values,
+      double distance,
+      double velocity,
+      double distanceBandwidth,
+      double velocityBandwidth) {
+    // Weighted normal equations for value = a + b * dDistance + c * dVelocity
+    double[] normal = new double[9];
+    double[] moments = new double[3];
+    for (int k = 0; k < values.length; k++) {
+      double dx = (distances[k] - distance) / distanceBandwidth;
+      double dv = (velocities[k] - velocity) / velocityBandwidth;
+      double weight = Math.exp(-0.5 * (dx * dx + dv * dv));
+      double[] basis = {1.0, dx, dv};
+      for (int r = 0; r < 3; r++) {
+        moments[r] += weight * basis[r] * values[k];
+        for (int c = 0; c < 3; c++) {
+          normal[r * 3 + c] += weight * basis[r] * basis[c];
+        }
+      }
+    }
+    if (normal[0] < 1.0e-12) {
+      // Far from every sample, use the nearest
+      int nearest = 0;
+      double nearestDistance = Double.POSITIVE_INFINITY;
+      for (int k = 0; k < values.length; k++) {
+        double d =
+            Math.hypot(
+                (distances[k] - distance) / distanceBandwidth,
+                (velocities[k] - velocity) / velocityBandwidth);
+        if (d < nearestDistance) {
+          nearestDistance = d;
+          nearest = k;
+        }
+      }
+      return values[nearest];
+    }
+
+    // Solve with Cramer's rule for the intercept
+    double determinant = determinant(normal);
+    if (Math.abs(determinant) < 1.0e-9 * Math.pow(normal[0], 3.0)) {
+      return moments[0] / normal[0];
+    }
+    double[] replaced = normal.clone();
+    replaced[0] = moments[0];
+    replaced[3] = moments[1];
+    replaced[6] = moments[2];
+    return determinant(replaced) / determinant;
+  }
+
+  private static double determinant(double[] m) {
+    return m[0] * (m[4] * m[8] - m[5] * m[7])
+        - m[1] * (m[3] * m[8] - m[5] * m[6])
+        + m[2] * (m[3] * m[7] - m[4] * m[6]);
+  }
+}
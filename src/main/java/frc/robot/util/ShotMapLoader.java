@@ -0,0 +1,182 @@
+package frc.robot.util;
+
+import static frc.robot.subsystems.shooter.ShooterConstants.shotTableInterpolation;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads the shot table used by {@link ShooterSettings} from files.
+ *
+ * <p>The shot map is a CSV of {@code distance,angle,power} rows deployed to {@code
+ * deploy/shooter/shot_map.csv}. A table can also be built from the hits saved by {@link
+ * ShotRecorder}. Reloads parse on a background thread and publish the finished table with {@link
+ * ShooterSettings#setTable}, so lookups in the control loop never wait. If a reload fails, the
+ * current table is kept. Points at the same distance are averaged. Until a map loads, lookups use
+ * {@link #defaultTable}, so the table is never empty.
+ */
+public class ShotMapLoader {
+  public static final String mapPath = "shooter/shot_map.csv";
+
+  /** The compiled-in shot map, a copy of the deployed map used if it is missing or malformed. */
+  public static final ShotTable defaultTable =
+      ShotTable.of(
+          new double[] {
+            2.14, 2.17, 2.39, 2.55, 2.78, 2.88, 2.9, 3.0, 3.13, 3.144, 3.15, 3.2, 3.3, 3.5
+          },
+          new double[] {
+            0.26, 0.32, 0.245, 0.38, 0.18, 0.197, 0.29, 0.411, 0.31, 0.39, 0.144, 0.28, 0.05, 0.27
+          },
+          new double[] {280, 290, 270, 380, 400, 380, 400, 360, 620, 400, 400, 620, 620, 620},
+          shotTableInterpolation);
+
+  private static final AtomicBoolean reloading = new AtomicBoolean(false);
+
+  private ShotMapLoader() {}
+
+  /** Loads the deployed shot map on the calling thread, keeping the current table on failure. */
+  public static void loadDeployed() {
+    File file = new File(Filesystem.getDeployDirectory(), mapPath);
+    try {
+      publish(parseMap(file), file.toString());
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("Failed to load shot map " + file + ": " + e);
+    }
+  }
+
+  /** Reloads a shot map file in the background, or the deployed map if the path is empty. */
+  public static void reloadMap(String path) {
+    File file =
+        path.isEmpty() ? new File(Filesystem.getDeployDirectory(), mapPath) : new File(path);
+    reload(() -> parseMap(file), file.toString());
+  }
+
+  /** Rebuilds the table from recorded hits in the background. */
+  public static void reloadRecordedShots(File directory) {
+    reload(() -> parseRecordedShots(directory), "recorded shots in " + directory);
+  }
+
+  private static void reload(Callable<ShotTable> source, String name) {
+    if (!reloading.compareAndSet(false, true)) {
+      System.out.println("Shot map reload already running, ignoring " + name);
+      return;
+    }
+    Thread thread =
+        new Thread(
+            () -> {
+              try {
+                publish(source.call(), name);
+              } catch (Exception e) {
+                System.out.println("Failed to reload shot map from " + name + ": " + e);
+              } finally {
+                reloading.set(false);
+              }
+            },
+            "ShotMapLoader");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private static void publish(ShotTable table, String name) {
+    if (table.size() < 2) {
+      throw new IllegalArgumentException("Need at least 2 points, found " + table.size());
+    }
+    ShooterSettings.setTable(table);
+    System.out.println("Loaded " + table.size() + " point shot map from " + name);
+  }
+
+  /** Parses a shot map of {@code distance,angle,power} rows, skipping comments and headers. */
+  public static ShotTable parseMap(File file) throws IOException {
+    Map<Double, double[]> points = new TreeMap<>();
+    for (String line : Files.readAllLines(file.toPath())) {
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#") || Character.isLetter(line.charAt(0))) {
+        continue;
+      }
+      String[] fields = line.split(",");
+      if (fields.length < 3) {
+        throw new IllegalArgumentException("Malformed shot map row: " + line);
+      }
+      addPoint(
+          points,
+          Double.parseDouble(fields[0].trim()),
+          Double.parseDouble(fields[1].trim()),
+          Double.parseDouble(fields[2].trim()));
+    }
+    return toTable(points);
+  }
+
+  /** Builds a table from the hits in every shot file in a directory. */
+  public static ShotTable parseRecordedShots(File directory) throws IOException {
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(".csv"));
+    if (files == null) {
+      throw new IOException("Not a directory: " + directory);
+    }
+    Map<Double, double[]> points = new TreeMap<>();
+    for (File file : files) {
+      List<String> lines = Files.readAllLines(file.toPath());
+      if (lines.isEmpty()) {
+        continue;
+      }
+
+      // Find the columns from the header
+      List<String> header = Arrays.asList(lines.get(0).split(","));
+      int distanceColumn = header.indexOf("distance");
+      int angleOffsetColumn = header.indexOf("angleOffset");
+      int velocityColumn = header.indexOf("velocity");
+      int outcomeColumn = header.indexOf("outcome");
+      if (distanceColumn < 0
+          || angleOffsetColumn < 0
+          || velocityColumn < 0
+          || outcomeColumn < 0) {
+        continue;
+      }
+      for (String line : lines.subList(1, lines.size())) {
+        String[] fields = line.split(",");
+        if (fields.length != header.size()
+            || !fields[outcomeColumn].equals(ShotRecorder.Outcome.HIT.name())) {
+          continue;
+        }
+        // The table's angle is the negated offset, see ShooterSettings.interpolateAngle
+        addPoint(
+            points,
+            Double.parseDouble(fields[distanceColumn]),
+            -Double.parseDouble(fields[angleOffsetColumn]),
+            Double.parseDouble(fields[velocityColumn]));
+      }
+    }
+    return toTable(points);
+  }
+
+  /** Accumulates the angle and power sums and the count at a distance. */
+  private static void addPoint(
+      Map<Double, double[]> points, double distance, double angle, double power) {
+    double[] sums = points.computeIfAbsent(distance, key -> new double[3]);
+    sums[0] += angle;
+    sums[1] += power;
+    sums[2]++;
+  }
+
+  private static ShotTable toTable(Map<Double, double[]> points) {
+    double[] distances = new double[points.size()];
+    double[] angles = new double[distances.length];
+    double[] powers = new double[distances.length];
+    int i = 0;
+    for (var entry : points.entrySet()) {
+      double[] sums = entry.getValue();
+      distances[i] = entry.getKey();
+      angles[i] = sums[0] / sums[2];
+      powers[i] = sums[1] / sums[2];
+      i++;
+    }
+    return ShotTable.of(distances, angles, powers, shotTableInterpolation);
+  }
+}
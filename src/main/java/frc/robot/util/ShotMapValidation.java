@@ -0,0 +1,120 @@
+package frc.robot.util;
+
+import frc.robot.util.NoteTrajectorySim.Result;
+import java.io.File;
+import java.io.IOException;
+import java.util.stream.IntStream;
+
+/**
+ * Offline harness that flies simulated notes from a shot map to find regions that miss.
+ *
+ * <p>Shots are sampled over the map's distance range and over radial and tangential robot
+ * velocities, with the flywheel at the map's speed for the distance. The robot's heading is the
+ * target heading plus the map's aim offset, as in {@link ShooterSettings#interpolateAngle}. An odd
+ * number of velocity samples includes stationary shots. Each shot is flown by {@link
+ * NoteTrajectorySim} in parallel across all cores. Results are reported per distance bin, for
+ * stationary shots and for all shots, with bins where stationary shots miss flagged.
+ *
+ * <p>Usage: {@code ./gradlew validateShotMap [--args="<shot_map.csv> <distanceSamples>
+ * <velocitySamples> <maxSpeed>"]}
+ */
+public class ShotMapValidation {
+  private static final double targetX = 4.5;
+  private static final double targetY = 4.0;
+  private static final int binCount = 10;
+
+  private ShotMapValidation() {}
+
+  public static void main(String... args) throws IOException {
+    File file = new File(args.length > 0 ? args[0] : "src/main/deploy/" + ShotMapLoader.mapPath);
+    int distanceSamples = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    int velocitySamples = args.length > 2 ? Integer.parseInt(args[2]) : 9;
+    double maxSpeed = args.length > 3 ? Double.parseDouble(args[3]) : 2.0;
+    ShotTable table = ShotMapLoader.parseMap(file);
+    double minDistance = table.getMinDistance();
+    double maxDistance = table.getMaxDistance();
+    NoteTrajectorySim sim = NoteTrajectorySim.fromConstants();
+
+    // Fly every sample, indexed by distance, radial velocity and tangential velocity
+    int stationaryIndex = velocitySamples / 2;
+    int sampleCount = distanceSamples * velocitySamples * velocitySamples;
+    double[] distances = new double[sampleCount];
+    boolean[] stationary = new boolean[sampleCount];
+    Result[] results = new Result[sampleCount];
+    long startNanos = System.nanoTime();
+    IntStream.range(0, sampleCount)
+        .parallel()
+        .forEach(
+            i -> {
+              int distanceIndex = i / (velocitySamples * velocitySamples);
+              int radialIndex = i / velocitySamples % velocitySamples;
+              int tangentialIndex = i % velocitySamples;
+              double distance =
+                  minDistance
+                      + (maxDistance - minDistance)
+                          * distanceIndex
+                          / Math.max(distanceSamples - 1, 1);
+              double radialVelocity = velocity(radialIndex, velocitySamples, maxSpeed);
+              double tangentialVelocity = velocity(tangentialIndex, velocitySamples, maxSpeed);
+
+              // Robot on the -x side of the target, aimed with the map's offset from it
+              distances[i] = distance;
+              stationary[i] = radialIndex == stationaryIndex && tangentialIndex == stationaryIndex;
+              results[i] =
+                  sim.simulate(
+                      targetX - distance,
+                      targetY,
+                      -radialVelocity,
+                      -tangentialVelocity,
+                      -table.getAngle(distance),
+                      NoteTrajectorySim.getExitSpeed(table.getPower(distance)),
+                      targetX,
+                      targetY);
+            });
+    double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+    // Summarize by distance bin
+    int[] stationaryHits = new int[binCount];
+    int[] stationaryCounts = new int[binCount];
+    int[] hits = new int[binCount];
+    int[] counts = new int[binCount];
+    for (int i = 0; i < sampleCount; i++) {
+      int bin =
+          (int)
+              Math.min(
+                  (distances[i] - minDistance) / (maxDistance - minDistance) * binCount,
+                  binCount - 1);
+      counts[bin]++;
+      hits[bin] += results[i].hit() ? 1 : 0;
+      if (stationary[i]) {
+        stationaryCounts[bin]++;
+        stationaryHits[bin] += results[i].hit() ? 1 : 0;
+      }
+    }
+
+    System.out.printf(
+        "%d shots from %s in %.2f s (%.0f shots/s), speeds up to %.1f m/s%n",
+        sampleCount, file, elapsedSeconds, sampleCount / elapsedSeconds, maxSpeed);
+    System.out.println("Distance (m)    Stationary hits   All hits");
+    for (int bin = 0; bin < binCount; bin++) {
+      double low = minDistance + (maxDistance - minDistance) * bin / binCount;
+      double high = minDistance + (maxDistance - minDistance) * (bin + 1) / binCount;
+      System.out.printf(
+          "%.2f - %.2f     %5.1f%%            %5.1f%%%s%n",
+          low,
+          high,
+          percent(stationaryHits[bin], stationaryCounts[bin]),
+          percent(hits[bin], counts[bin]),
+          stationaryHits[bin] < stationaryCounts[bin] ? "   <- check table" : "");
+    }
+  }
+
+  /** Returns evenly spaced velocities from -maxSpeed to maxSpeed, with zero in the middle. */
+  private static double velocity(int index, int count, double maxSpeed) {
+    return count > 1 ? maxSpeed * (2.0 * index / (count - 1) - 1.0) : 0.0;
+  }
+
+  private static double percent(int hits, int count) {
+    return count > 0 ? 100.0 * hits / count : 0.0;
+  }
+}
@@ -0,0 +1,171 @@
+package frc.robot.util;
+
+import static frc.robot.subsystems.shooter.ShooterConstants.*;
+
+import edu.wpi.first.math.filter.Debouncer;
+import edu.wpi.first.math.filter.Debouncer.DebounceType;
+import edu.wpi.first.math.filter.LinearFilter;
+import edu.wpi.first.wpilibj.Timer;
+import java.util.function.DoubleSupplier;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Decides when a shot can be fed.
+ *
+ * <p>Flywheel velocity error, heading error, chassis speed and pose confidence are each checked
+ * against a tolerance, and a check only counts as settled once it has held for the debounce time.
+ * The rate of each error is also tracked, so a check outside its tolerance predicts when it will
+ * cross into it. The note leaves the flywheel a short lead time after the feeder starts, so a shot
+ * can be fed as soon as every check outside its tolerance is predicted to arrive within that lead.
+ * A check already inside its tolerance still has to settle, which keeps noise from firing early.
+ */
+public class ShotReadiness {
+  private final Check flywheel;
+  private final Check heading;
+  private final Check chassis;
+  private final Check poseConfidence;
+  private final Check[] checks;
+
+  private boolean ready = false;
+  private boolean readyToFeed = false;
+  private double timeToReady = Double.POSITIVE_INFINITY;
+
+  /**
+   * Creates a new ShotReadiness.
+   *
+   * @param flywheelError Flywheel goal minus measured velocity in radians per second, or NaN when
+   *     the flywheel is not under closed loop control.
+   * @param headingError Target heading minus robot heading in radians, wrapped to [-pi, pi].
+   * @param linearSpeed Chassis linear speed in meters per second.
+   * @param confidence Pose confidence from zero to one.
+   */
+  public ShotReadiness(
+      DoubleSupplier flywheelError,
+      DoubleSupplier headingError,
+      DoubleSupplier linearSpeed,
+      DoubleSupplier confidence) {
+    flywheel = new Check("Flywheel", flywheelError, readinessFlywheelToleranceRadPerSec);
+    heading = new Check("Heading", headingError, readinessHeadingToleranceRadians);
+    chassis = new Check("Chassis", linearSpeed, readinessLinearSpeedToleranceMetersPerSec);
+    poseConfidence =
+        new Check(
+            "PoseConfidence",
+            () -> 1.0 - confidence.getAsDouble(),
+            1.0 - readinessMinPoseConfidence);
+    checks = new Check[] {flywheel, heading, chassis, poseConfidence};
+  }
+
+  /** Clears the rate history and debouncers, to be called when a new shot starts. */
+  public void reset() {
+    for (Check check : checks) {
+      check.reset();
+    }
+    ready = false;
+    readyToFeed = false;
+    timeToReady = Double.POSITIVE_INFINITY;
+  }
+
+  /** Samples every check. Must be called once per cycle while aiming. */
+  public void update() {
+    double timestamp = Timer.getTimestamp();
+    boolean allSettled = true;
+    boolean allWithin = true;
+    boolean withinSettled = true;
+    timeToReady = 0.0;
+    for (Check check : checks) {
+      check.update(timestamp);
+      allSettled &= check.settled;
+      allWithin &= check.within;
+      withinSettled &= !check.within || check.settled;
+      timeToReady = Math.max(timeToReady, check.timeToReady);
+    }
+    ready = allSettled;
+
+    // Only fire early on predictions once everything already in tolerance has settled
+    readyToFeed = ready || (!allWithin && withinSettled && timeToReady <= feedLeadSeconds);
+
+    Logger.recordOutput("ShotReadiness/Ready", ready);
+    Logger.recordOutput("ShotReadiness/ReadyToFeed", readyToFeed);
+    Logger.recordOutput("ShotReadiness/TimeToReadySeconds", timeToReady);
+  }
+
+  /** Returns whether every check has settled within its tolerance. */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /** Returns whether the feeder can start, including shots predicted to be ready in time. */
+  public boolean isReadyToFeed() {
+    return readyToFeed;
+  }
+
+  /** Returns the predicted time until every check is within tolerance, or infinity. */
+  public double getTimeToReady() {
+    return timeToReady;
+  }
+
+  private static class Check {
+    private final String key;
+    private final DoubleSupplier error;
+    private final double tolerance;
+    private final LinearFilter rateFilter =
+        LinearFilter.singlePoleIIR(readinessRateTimeConstantSeconds, 0.02);
+    private Debouncer debouncer = new Debouncer(readinessDebounceSeconds, DebounceType.kRising);
+
+    private double lastError = Double.NaN;
+    private double lastTimestamp = 0.0;
+    private double rate = 0.0;
+
+    private boolean within = false;
+    private boolean settled = false;
+    private double timeToReady = Double.POSITIVE_INFINITY;
+
+    private Check(String name, DoubleSupplier error, double tolerance) {
+      this.key = "ShotReadiness/" + name + "/";
+      this.error = error;
+      this.tolerance = tolerance;
+    }
+
+    private void reset() {
+      rateFilter.reset();
+      debouncer = new Debouncer(readinessDebounceSeconds, DebounceType.kRising);
+      lastError = Double.NaN;
+      rate = 0.0;
+      within = false;
+      settled = false;
+      timeToReady = Double.POSITIVE_INFINITY;
+    }
+
+    private void update(double timestamp) {
+      double value = error.getAsDouble();
+
+      // Estimate the rate of change, restarting when the error is undefined
+      if (!Double.isFinite(value)) {
+        rateFilter.reset();
+        rate = 0.0;
+      } else if (Double.isFinite(lastError) && timestamp > lastTimestamp) {
+        rate = rateFilter.calculate((value - lastError) / (timestamp - lastTimestamp));
+      }
+      lastError = value;
+      lastTimestamp = timestamp;
+
+      within = Math.abs(value) <= tolerance;
+      settled = debouncer.calculate(within);
+
+      // Extrapolate the error linearly to the edge of the tolerance
+      double magnitudeRate = Math.signum(value) * rate;
+      if (within) {
+        timeToReady = 0.0;
+      } else if (Double.isFinite(value) && magnitudeRate < 0.0) {
+        timeToReady = (Math.abs(value) - tolerance) / -magnitudeRate;
+      } else {
+        timeToReady = Double.POSITIVE_INFINITY;
+      }
+
+      Logger.recordOutput(key + "Error", value);
+      Logger.recordOutput(key + "Rate", rate);
+      Logger.recordOutput(key + "Settled", settled);
+      Logger.recordOutput(key + "TimeToReadySeconds", timeToReady);
+    }
+  }
+}
@@ -0,0 +1,250 @@
+package frc.robot.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records shots to CSV files without blocking the main loop.
+ *
+ * <p>{@link #record} only offers a fixed-size {@link Shot} to a bounded queue, dropping it if the
+ * queue is full. A daemon thread appends queued shots to {@code shots_<index>.csv}, syncing to disk
+ * after a batch of shots or an interval, whichever comes first, and rotates to a new file once the
+ * current one reaches its size limit. Each run starts a new file after the highest existing index.
+ * The first five columns match the sample rows read by {@link ShotGridFitter}.
+ */
+public class ShotRecorder {
+  private static final String header =
+      "distance,radialVelocity,angleOffset,velocity,timeOfFlight,tangentialVelocity,timestamp,"
+          + "poseX,poseY,poseHeading,outcome";
+
+  public static enum Outcome {
+    UNKNOWN,
+    HIT,
+    MISS
+  }
+
+  /**
+   * A single shot, in meters, radians, radians per second and seconds. Radial velocity is away from
+   * the target and the angle offset is the heading relative to the direction of the target, as in
+   * {@link ShotGrid}.
+   */
+  public static record Shot(
+      double distance,
+      double radialVelocity,
+      double angleOffset,
+      double velocity,
+      double timeOfFlight,
+      double tangentialVelocity,
+      double timestamp,
+      double poseX,
+      double poseY,
+      double poseHeading,
+      Outcome outcome) {
+    /** Returns a copy with a new time of flight and outcome. */
+    public Shot withOutcome(double timeOfFlight, Outcome outcome) {
+      return new Shot(
+          distance,
+          radialVelocity,
+          angleOffset,
+          velocity,
+          timeOfFlight,
+          tangentialVelocity,
+          timestamp,
+          poseX,
+          poseY,
+          poseHeading,
+          outcome);
+    }
+  }
+
+  private final File directory;
+  private final long maxFileBytes;
+  private final int syncBatchSize;
+  private final double syncIntervalSeconds;
+  private final BlockingQueue<Shot> queue;
+  private final Thread thread = new Thread(this::run, "ShotRecorder");
+  private volatile int droppedCount = 0;
+
+  // Owned by the writer thread
+  private int fileIndex;
+  private FileOutputStream stream = null;
+  private BufferedWriter writer = null;
+  private long fileBytes = 0;
+
+  /**
+   * Creates a new ShotRecorder. Call {@link #start()} to begin writing.
+   *
+   * @param directory The directory to write shot files to, created if missing.
+   * @param maxFileBytes The size at which to rotate to a new file.
+   * @param queueCapacity The number of shots that can wait to be written.
+   * @param syncBatchSize The number of shots written between syncs to disk.
+   * @param syncIntervalSeconds The longest a written shot waits before a sync.
+   */
+  public ShotRecorder(
+      File directory,
+      long maxFileBytes,
+      int queueCapacity,
+      int syncBatchSize,
+      double syncIntervalSeconds) {
+    this.directory = directory;
+    this.maxFileBytes = maxFileBytes;
+    this.syncBatchSize = syncBatchSize;
+    this.syncIntervalSeconds = syncIntervalSeconds;
+    queue = new ArrayBlockingQueue<>(queueCapacity);
+    thread.setDaemon(true);
+  }
+
+  public void start() {
+    thread.start();
+  }
+
+  /** Queues a shot to be written. Never blocks. */
+  public void record(Shot shot) {
+    if (!queue.offer(shot)) {
+      droppedCount++;
+    }
+  }
+
+  /** Returns the number of shots dropped because the queue was full. */
+  public int getDroppedCount() {
+    return droppedCount;
+  }
+
+  private void run() {
+    directory.mkdirs();
+    fileIndex = findLastIndex() + 1;
+    List<Shot> batch = new ArrayList<>();
+    long syncIntervalNanos = (long) (syncIntervalSeconds * 1e9);
+    long lastSyncNanos = System.nanoTime();
+    int unsyncedCount = 0;
+    while (true) {
+      try {
+        // Wait for a shot, waking up in time to sync anything already written
+        Shot shot =
+            unsyncedCount > 0
+                ? queue.poll(
+                    Math.max(syncIntervalNanos - (System.nanoTime() - lastSyncNanos), 0),
+                    TimeUnit.NANOSECONDS)
+                : queue.take();
+        if (shot != null) {
+          batch.add(shot);
+          queue.drainTo(batch);
+          for (Shot queued : batch) {
+            write(queued);
+          }
+          unsyncedCount += batch.size();
+        }
+
+        if (unsyncedCount > 0
+            && (unsyncedCount >= syncBatchSize
+                || System.nanoTime() - lastSyncNanos >= syncIntervalNanos)) {
+          sync();
+          unsyncedCount = 0;
+          lastSyncNanos = System.nanoTime();
+        }
+      } catch (InterruptedException e) {
+        close();
+        return;
+      } catch (IOException e) {
+        // Drop the failed batch rather than writing its earlier shots twice
+        System.out.println("Failed to record shot: " + e);
+        close();
+        unsyncedCount = 0;
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void write(Shot shot) throws IOException {
+    if (writer == null || fileBytes >= maxFileBytes) {
+      rotate();
+    }
+    String line =
+        shot.distance()
+            + ","
+            + shot.radialVelocity()
+            + ","
+            + shot.angleOffset()
+            + ","
+            + shot.velocity()
+            + ","
+            + shot.timeOfFlight()
+            + ","
+            + shot.tangentialVelocity()
+            + ","
+            + shot.timestamp()
+            + ","
+            + shot.poseX()
+            + ","
+            + shot.poseY()
+            + ","
+            + shot.poseHeading()
+            + ","
+            + shot.outcome()
+            + "\n";
+    writer.write(line);
+    fileBytes += line.length();
+  }
+
+  private void rotate() throws IOException {
+    if (writer != null) {
+      sync();
+      close();
+    }
+    File file = new File(directory, "shots_" + fileIndex++ + ".csv");
+    stream = new FileOutputStream(file, true);
+    writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+    fileBytes = file.length();
+    if (fileBytes == 0) {
+      writer.write(header + "\n");
+      fileBytes += header.length() + 1;
+    }
+  }
+
+  private void sync() throws IOException {
+    if (writer != null) {
+      writer.flush();
+      stream.getChannel().force(false);
+    }
+  }
+
+  private void close() {
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        System.out.println("Failed to close shot file: " + e);
+      }
+    }
+    writer = null;
+    stream = null;
+  }
+
+  private int findLastIndex() {
+    int last = -1;
+    String[] names = directory.list();
+    if (names == null) {
+      return last;
+    }
+    for (String name : names) {
+      if (name.startsWith("shots_") && name.endsWith(".csv")) {
+        try {
+          last = Math.max(last, Integer.parseInt(name.substring(6, name.length() - 4)));
+        } catch (NumberFormatException e) {
+          // Not one of ours
+        }
+      }
+    }
+    return last;
+  }
+}
@@ -0,0 +1,229 @@
+package frc.robot.util;
+
+import static frc.robot.subsystems.shooter.ShooterConstants.noteLaunchPitchRadians;
+
+import java.util.function.Supplier;
+
+/**
+ * Iterative shoot-on-the-move solver.
+ *
+ * <p>A note inherits the robot's velocity, so it lands displaced by that velocity times its time
+ * of flight. The solver aims at a virtual target shifted the opposite way. Because the time of
+ * flight depends on the distance to the virtual target, the shift is recomputed from the new
+ * distance until the expected miss is within tolerance or the iteration cap is reached. Solving
+ * does not allocate, and results are read from getters until the next solve.
+ */
+public class ShotSolver {
+  private static final double derivativeStepMeters = 1.0e-3;
+  private static final double maxStepFraction = 0.5;
+  private static final double minMaxStepSeconds = 0.05;
+
+  /** Stationary shot parameters by distance to the target. */
+  public static interface ShotModel {
+    /** Returns the time of flight in seconds. */
+    double getTimeOfFlight(double distance);
+
+    /** Returns the flywheel speed in radians per second. */
+    double getSpeed(double distance);
+
+    /** Returns the target-relative aim offset in radians, positive counterclockwise. */
+    double getAngleOffset(double distance);
+
+    /** Returns a model reading the stationary shots from a grid. */
+    static ShotModel stationary(ShotGrid grid) {
+      return new ShotModel() {
+        @Override
+        public double getTimeOfFlight(double distance) {
+          return grid.getTimeOfFlight(distance, 0.0);
+        }
+
+        @Override
+        public double getSpeed(double distance) {
+          return grid.getSpeed(distance, 0.0);
+        }
+
+        @Override
+        public double getAngleOffset(double distance) {
+          return grid.getAngleOffset(distance, 0.0);
+        }
+      };
+    }
+
+    /**
+     * Returns a model reading the current distance-only table, for when there is no grid. The table
+     * has no time of flight, so it is estimated from the horizontal exit speed without drag.
+     */
+    static ShotModel table(Supplier<ShotTable> table) {
+      return new ShotModel() {
+        @Override
+        public double getTimeOfFlight(double distance) {
+          double horizontalSpeed =
+              NoteTrajectorySim.getExitSpeed(table.get().getPower(distance))
+                  * Math.cos(noteLaunchPitchRadians);
+          return distance / Math.max(horizontalSpeed, 1.0);
+        }
+
+        @Override
+        public double getSpeed(double distance) {
+          return table.get().getPower(distance);
+        }
+
+        @Override
+        public double getAngleOffset(double distance) {
+          // The table stores the negated offset, see ShooterSettings.interpolateAngle
+          return -table.get().getAngle(distance);
+        }
+      };
+    }
+  }
+
+  private final ShotModel model;
+  private final int maxIterations;
+  private final double toleranceMeters;
+  private final double velocityFactor;
+
+  // Results
+  private double heading = 0.0;
+  private double speed = 0.0;
+  private double timeOfFlight = 0.0;
+  private double missDistance = 0.0;
+  private double virtualTargetX = 0.0;
+  private double virtualTargetY = 0.0;
+  private int iterations = 0;
+  private boolean converged = false;
+
+  /**
+   * Creates a new ShotSolver.
+   *
+   * @param model The stationary shot model.
+   * @param maxIterations The maximum number of virtual target updates per solve.
+   * @param toleranceMeters The expected miss distance at which the solve has converged.
+   * @param velocityFactor Tuned scale applied to the robot velocity when shifting the target.
+   */
+  public ShotSolver(
+      ShotModel model, int maxIterations, double toleranceMeters, double velocityFactor) {
+    this.model = model;
+    this.maxIterations = maxIterations;
+    this.toleranceMeters = toleranceMeters;
+    this.velocityFactor = velocityFactor;
+  }
+
+  /**
+   * Solves for a shot from a moving robot. All values are in the field frame.
+   *
+   * @return Whether the virtual target converged within the iteration cap.
+   */
+  public boolean solve(
+      double robotX,
+      double robotY,
+      double velocityX,
+      double velocityY,
+      double targetX,
+      double targetY) {
+    double shiftX = velocityX * velocityFactor;
+    double shiftY = velocityY * velocityFactor;
+
+    // Solve for the time of flight t where the shot to the target shifted by the velocity over t
+    // takes t, using Newton's method with a fixed-point step where the derivative is flat
+    double flightTime = model.getTimeOfFlight(Math.hypot(targetX - robotX, targetY - robotY));
+    double deltaX = 0.0;
+    double deltaY = 0.0;
+    double distance = 0.0;
+    double shotFlightTime = 0.0;
+    double bestMiss = Double.POSITIVE_INFINITY;
+    double bestDeltaX = 0.0;
+    double bestDeltaY = 0.0;
+    double bestDistance = 0.0;
+    double bestFlightTime = 0.0;
+    converged = false;
+    iterations = 0;
+    while (iterations < maxIterations) {
+      iterations++;
+      deltaX = targetX - shiftX * flightTime - robotX;
+      deltaY = targetY - shiftY * flightTime - robotY;
+      distance = Math.hypot(deltaX, deltaY);
+      shotFlightTime = model.getTimeOfFlight(distance);
+
+      // The note lands at the virtual target, displaced by the unscaled robot velocity over the
+      // time of flight to the virtual target
+      double miss =
+          Math.hypot(
+              shiftX * flightTime - velocityX * shotFlightTime,
+              shiftY * flightTime - velocityY * shotFlightTime);
+      if (miss < bestMiss) {
+        bestMiss = miss;
+        bestDeltaX = deltaX;
+        bestDeltaY = deltaY;
+        bestDistance = distance;
+        bestFlightTime = shotFlightTime;
+      }
+      if (miss < toleranceMeters) {
+        converged = true;
+        break;
+      }
+
+      double slope =
+          (model.getTimeOfFlight(distance + derivativeStepMeters) - shotFlightTime)
+              / derivativeStepMeters;
+      double distanceRate = distance > 0.0 ? -(deltaX * shiftX + deltaY * shiftY) / distance : 0.0;
+      double residualRate = slope * distanceRate - 1.0;
+      double step =
+          Math.abs(residualRate) > 1.0e-6
+              ? -(shotFlightTime - flightTime) / residualRate
+              : shotFlightTime - flightTime;
+
+      // Limit the step, since there may be no solution when the robot outruns the note
+      double maxStep = maxStepFraction * flightTime + minMaxStepSeconds;
+      flightTime = Math.max(flightTime + Math.max(-maxStep, Math.min(step, maxStep)), 0.0);
+    }
+
+    // Use the best iterate, which is the last one if the solve converged
+    missDistance = bestMiss;
+    virtualTargetX = robotX + bestDeltaX;
+    virtualTargetY = robotY + bestDeltaY;
+    heading = Math.atan2(bestDeltaY, bestDeltaX) + model.getAngleOffset(bestDistance);
+    speed = model.getSpeed(bestDistance);
+    timeOfFlight = bestFlightTime;
+    return converged;
+  }
+
+  /** Returns the field-relative robot heading to shoot at, in radians. */
+  public double getHeading() {
+    return heading;
+  }
+
+  /** Returns the flywheel setpoint in radians per second. */
+  public double getSpeed() {
+    return speed;
+  }
+
+  /** Returns the expected time of flight in seconds. */
+  public double getTimeOfFlight() {
+    return timeOfFlight;
+  }
+
+  /** Returns the expected distance between the landing point and the target in meters. */
+  public double getMissDistance() {
+    return missDistance;
+  }
+
+  /** Returns the x coordinate of the virtual target. */
+  public double getVirtualTargetX() {
+    return virtualTargetX;
+  }
+
+  /** Returns the y coordinate of the virtual target. */
+  public double getVirtualTargetY() {
+    return virtualTargetY;
+  }
+
+  /** Returns the number of iterations used by the last solve. */
+  public int getIterations() {
+    return iterations;
+  }
+
+  /** Returns whether the last solve converged. */
+  public boolean isConverged() {
+    return converged;
+  }
+}
@@ -0,0 +1,155 @@
+package frc.robot.util;
+
+import frc.robot.util.ShotSolver.ShotModel;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Offline harness that checks {@link ShotSolver} against simulated notes.
+ *
+ * <p>Random robot positions and velocities are sampled around the target. For each, the note is
+ * launched toward the aim point at the model's stationary speed plus the robot's velocity, and its
+ * landing point after the true time of flight is compared to the target. The true time of flight
+ * is not the solver's model: it is scaled by a bias and has Gaussian noise added per shot, so the
+ * results show how the solver degrades when the model is wrong rather than checking the solver
+ * against itself. Results are reported for the solver, a single lookahead step, and no
+ * compensation.
+ *
+ * <p>Usage: {@code ./gradlew validateShotSolver [--args="<sampleCount> <maxSpeed>
+ * <timeOfFlightBias> <timeOfFlightNoiseSeconds>"]}
+ */
+public class ShotSolverValidation {
+  private static final double targetX = 4.5;
+  private static final double targetY = 4.0;
+  private static final double minDistance = 1.5;
+  private static final double maxDistance = 6.0;
+
+  /** Time of flight grows with distance, with a small quadratic term for drag. */
+  private static final ShotModel model =
+      new ShotModel() {
+        @Override
+        public double getTimeOfFlight(double distance) {
+          return 0.05 + 0.08 * distance + 0.006 * distance * distance;
+        }
+
+        @Override
+        public double getSpeed(double distance) {
+          return 250.0 + 60.0 * distance;
+        }
+
+        @Override
+        public double getAngleOffset(double distance) {
+          return 0.0;
+        }
+      };
+
+  private ShotSolverValidation() {}
+
+  public static void main(String... args) {
+    int sampleCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    double maxSpeed = args.length > 1 ? Double.parseDouble(args[1]) : 4.0;
+    double timeOfFlightBias = args.length > 2 ? Double.parseDouble(args[2]) : 0.05;
+    double timeOfFlightNoise = args.length > 3 ? Double.parseDouble(args[3]) : 0.01;
+    Random random = new Random(0);
+    ShotSolver solver = new ShotSolver(model, 8, 1.0e-3, 1.0);
+
+    double[] solverMisses = new double[sampleCount];
+    double[] lookaheadMisses = new double[sampleCount];
+    double[] staticMisses = new double[sampleCount];
+    double[] predictedErrors = new double[sampleCount];
+    int convergedCount = 0;
+    int totalIterations = 0;
+    for (int i = 0; i < sampleCount; i++) {
+      double distance = minDistance + random.nextDouble() * (maxDistance - minDistance);
+      double bearing = random.nextDouble() * 2.0 * Math.PI;
+      double robotX = targetX - distance * Math.cos(bearing);
+      double robotY = targetY - distance * Math.sin(bearing);
+      double speed = random.nextDouble() * maxSpeed;
+      double direction = random.nextDouble() * 2.0 * Math.PI;
+      double velocityX = speed * Math.cos(direction);
+      double velocityY = speed * Math.sin(direction);
+      Truth truth = new Truth(timeOfFlightBias, random.nextGaussian() * timeOfFlightNoise);
+
+      // Iterative solver
+      if (solver.solve(robotX, robotY, velocityX, velocityY, targetX, targetY)) {
+        convergedCount++;
+      }
+      totalIterations += solver.getIterations();
+      solverMisses[i] =
+          simulateMiss(
+              truth,
+              robotX,
+              robotY,
+              velocityX,
+              velocityY,
+              solver.getVirtualTargetX(),
+              solver.getVirtualTargetY());
+      predictedErrors[i] = Math.abs(solver.getMissDistance() - solverMisses[i]);
+
+      // Single lookahead step using the time of flight to the real target
+      double flightTime = model.getTimeOfFlight(distance);
+      lookaheadMisses[i] =
+          simulateMiss(
+              truth,
+              robotX,
+              robotY,
+              velocityX,
+              velocityY,
+              targetX - velocityX * flightTime,
+              targetY - velocityY * flightTime);
+
+      // No compensation
+      staticMisses[i] =
+          simulateMiss(truth, robotX, robotY, velocityX, velocityY, targetX, targetY);
+    }
+
+    System.out.printf(
+        "%d samples, speeds up to %.1f m/s, time of flight bias %.1f%% and noise %.3f s%n",
+        sampleCount,
+        maxSpeed,
+        100.0 * timeOfFlightBias,
+        timeOfFlightNoise);
+    System.out.printf(
+        "%.1f%% converged, %.2f iterations on average%n",
+        100.0 * convergedCount / sampleCount,
+        (double) totalIterations / sampleCount);
+    report("Solver", solverMisses);
+    report("Single lookahead", lookaheadMisses);
+    report("No compensation", staticMisses);
+    report("Predicted miss error", predictedErrors);
+  }
+
+  /** The true time of flight for one shot, which differs from the solver's model. */
+  private static record Truth(double bias, double noiseSeconds) {
+    double getTimeOfFlight(double distance) {
+      return Math.max(model.getTimeOfFlight(distance) * (1.0 + bias) + noiseSeconds, 0.0);
+    }
+  }
+
+  /** Flies a note aimed at a point and returns its distance from the target when it lands. */
+  private static double simulateMiss(
+      Truth truth,
+      double robotX,
+      double robotY,
+      double velocityX,
+      double velocityY,
+      double aimX,
+      double aimY) {
+    double aimDistance = Math.hypot(aimX - robotX, aimY - robotY);
+    double flightTime = truth.getTimeOfFlight(aimDistance);
+    double landingX = aimX + velocityX * flightTime;
+    double landingY = aimY + velocityY * flightTime;
+    return Math.hypot(landingX - targetX, landingY - targetY);
+  }
+
+  private static void report(String name, double[] misses) {
+    double[] sorted = misses.clone();
+    Arrays.sort(sorted);
+    System.out.printf(
+        "%-22s median %.4f m, p95 %.4f m, max %.4f m%n",
+        name,
+        sorted[sorted.length / 2],
+        sorted[(int) (sorted.length * 0.95)],
+        sorted[sorted.length - 1]);
+  }
+}
@@ -0,0 +1,180 @@
+package frc.robot.util;
+
+import java.util.Arrays;
+
+/**
+ * Immutable table of shooter settings by distance, compiled into sorted primitive columns.
+ *
+ * <p>Lookups use a binary search and either linear or monotone cubic (Fritsch-Carlson)
+ * interpolation, clamping to the first and last points outside the table. Lookups do not allocate.
+ * Tables are never modified after construction, so a table can be built on any thread and published
+ * by swapping a reference.
+ */
+public final class ShotTable {
+  /** The interpolation used between table points. */
+  public static enum Interpolation {
+    LINEAR,
+    MONOTONE_CUBIC
+  }
+
+  /** A table with no points. */
+  public static final ShotTable empty =
+      new ShotTable(new double[0], new double[0], new double[0], Interpolation.LINEAR);
+
+  private final Interpolation interpolation;
+  private final double[] distances;
+  private final double[] angles;
+  private final double[] powers;
+  private final double[] angleTangents;
+  private final double[] powerTangents;
+
+  private ShotTable(
+      double[] distances, double[] angles, double[] powers, Interpolation interpolation) {
+    this.interpolation = interpolation;
+    this.distances = distances;
+    this.angles = angles;
+    this.powers = powers;
+    angleTangents =
+        interpolation == Interpolation.MONOTONE_CUBIC ? computeTangents(distances, angles) : null;
+    powerTangents =
+        interpolation == Interpolation.MONOTONE_CUBIC ? computeTangents(distances, powers) : null;
+  }
+
+  /**
+   * Compiles a table from unsorted points. The inputs are copied and not modified.
+   *
+   * @param distances The distance of each point. Must not contain duplicates.
+   * @param angles The angle at each point.
+   * @param powers The power at each point.
+   * @param interpolation The interpolation to use between points.
+   */
+  public static ShotTable of(
+      double[] distances, double[] angles, double[] powers, Interpolation interpolation) {
+    if (distances.length != angles.length || distances.length != powers.length) {
+      throw new IllegalArgumentException("Shot table columns must have the same length");
+    }
+
+    // Sort points by distance
+    Integer[] order = new Integer[distances.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+    double[] sortedDistances = new double[order.length];
+    double[] sortedAngles = new double[order.length];
+    double[] sortedPowers = new double[order.length];
+    for (int i = 0; i < order.length; i++) {
+      sortedDistances[i] = distances[order[i]];
+      sortedAngles[i] = angles[order[i]];
+      sortedPowers[i] = powers[order[i]];
+      if (i > 0 && sortedDistances[i] == sortedDistances[i - 1]) {
+        throw new IllegalArgumentException("Duplicate shot table distance: " + sortedDistances[i]);
+      }
+    }
+    return new ShotTable(sortedDistances, sortedAngles, sortedPowers, interpolation);
+  }
+
+  /** Returns the number of points in the table. */
+  public int size() {
+    return distances.length;
+  }
+
+  /** Returns the smallest distance in the table. */
+  public double getMinDistance() {
+    if (distances.length == 0) {
+      throw new IllegalStateException("Shot table is empty!");
+    }
+    return distances[0];
+  }
+
+  /** Returns the largest distance in the table. */
+  public double getMaxDistance() {
+    if (distances.length == 0) {
+      throw new IllegalStateException("Shot table is empty!");
+    }
+    return distances[distances.length - 1];
+  }
+
+  /** Returns the interpolated angle at a distance. */
+  public double getAngle(double distance) {
+    return lookup(distance, angles, angleTangents);
+  }
+
+  /** Returns the interpolated power at a distance. */
+  public double getPower(double distance) {
+    return lookup(distance, powers, powerTangents);
+  }
+
+  private double lookup(double distance, double[] values, double[] tangents) {
+    int size = distances.length;
+    if (size == 0) {
+      throw new IllegalStateException("Shot table is empty!");
+    }
+    if (distance <= distances[0]) {
+      return values[0];
+    }
+    if (distance >= distances[size - 1]) {
+      return values[size - 1];
+    }
+
+    // Find the segment containing the distance
+    int index = Arrays.binarySearch(distances, distance);
+    if (index >= 0) {
+      return values[index];
+    }
+    int low = -index - 2;
+    double width = distances[low + 1] - distances[low];
+    double t = (distance - distances[low]) / width;
+    if (interpolation == Interpolation.LINEAR) {
+      return values[low] + (values[low + 1] - values[low]) * t;
+    }
+
+    // Cubic Hermite basis
+    double t2 = t * t;
+    double t3 = t2 * t;
+    return (2.0 * t3 - 3.0 * t2 + 1.0) * values[low]
+        + (t3 - 2.0 * t2 + t) * width * tangents[low]
+        + (-2.0 * t3 + 3.0 * t2) * values[low + 1]
+        + (t3 - t2) * width * tangents[low + 1];
+  }
+
+  /** Computes Fritsch-Carlson tangents, which keep the curve monotonic between points. */
+  private static double[] computeTangents(double[] x, double[] y) {
+    int size = x.length;
+    double[] tangents = new double[size];
+    if (size < 2) {
+      return tangents;
+    }
+
+    // Secant slopes
+    double[] secants = new double[size - 1];
+    for (int i = 0; i < size - 1; i++) {
+      secants[i] = (y[i + 1] - y[i]) / (x[i + 1] - x[i]);
+    }
+
+    // Initial tangents, flat at local extrema
+    tangents[0] = secants[0];
+    tangents[size - 1] = secants[size - 2];
+    for (int i = 1; i < size - 1; i++) {
+      tangents[i] = secants[i - 1] * secants[i] <= 0.0 ? 0.0 : (secants[i - 1] + secants[i]) / 2.0;
+    }
+
+    // Limit tangents to prevent overshoot
+    for (int i = 0; i < size - 1; i++) {
+      if (secants[i] == 0.0) {
+        tangents[i] = 0.0;
+        tangents[i + 1] = 0.0;
+        continue;
+      }
+      double a = tangents[i] / secants[i];
+      double b = tangents[i + 1] / secants[i];
+      double magnitude = a * a + b * b;
+      if (magnitude > 9.0) {
+        double scale = 3.0 / Math.sqrt(magnitude);
+        tangents[i] = scale * a * secants[i];
+        tangents[i + 1] = scale * b * secants[i];
+      }
+    }
+    return tangents;
+  }
+}
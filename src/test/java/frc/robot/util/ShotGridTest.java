@@ -0,0 +1,52 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ShotGridTest {
+  private static final double epsilon = 1e-9;
+
+  @Test
+  void tangentialVelocityIsCounterclockwisePositive() {
+    // Robot on the -x side of the target, so the target is in the +x direction
+    assertEquals(-1.0, ShotGrid.getTangentialVelocity(1.0, 0.0, 0.0, 1.0), epsilon);
+    assertEquals(1.0, ShotGrid.getTangentialVelocity(1.0, 0.0, 0.0, -1.0), epsilon);
+
+    // Robot on the -y side of the target, so the target is in the +y direction
+    assertEquals(1.0, ShotGrid.getTangentialVelocity(0.0, 1.0, 1.0, 0.0), epsilon);
+  }
+
+  @Test
+  void radialVelocityIsPositiveAwayFromTarget() {
+    assertEquals(2.0, ShotGrid.getRadialVelocity(1.0, 0.0, -2.0, 0.0), epsilon);
+    assertEquals(-2.0, ShotGrid.getRadialVelocity(0.0, 1.0, 0.0, 2.0), epsilon);
+    assertEquals(0.0, ShotGrid.getRadialVelocity(1.0, 0.0, 0.0, 3.0), epsilon);
+  }
+
+  @Test
+  void leadAngleHasTheSignOfTangentialVelocity() {
+    assertEquals(0.0, ShotGrid.getLeadAngle(4.0, 0.0, 0.5), epsilon);
+    assertTrue(ShotGrid.getLeadAngle(4.0, 1.0, 0.5) > 0.0);
+    assertTrue(ShotGrid.getLeadAngle(4.0, -1.0, 0.5) < 0.0);
+    assertEquals(Math.atan2(0.5, 4.0), ShotGrid.getLeadAngle(4.0, 1.0, 0.5), epsilon);
+  }
+
+  @Test
+  void leadAngleReducesDriftForEitherDirection() {
+    double distance = 4.0;
+    double timeOfFlight = 0.5;
+    double noteSpeed = distance / timeOfFlight;
+    for (double velocityY : new double[] {-2.0, -0.5, 0.5, 2.0}) {
+      // Robot at the origin, target at +x, flying a straight line for the time of flight
+      double tangentialVelocity = ShotGrid.getTangentialVelocity(1.0, 0.0, 0.0, velocityY);
+      double lead = ShotGrid.getLeadAngle(distance, tangentialVelocity, timeOfFlight);
+      double unledMiss = velocityY * timeOfFlight;
+      double ledMiss = (noteSpeed * Math.sin(lead) + velocityY) * timeOfFlight;
+      assertTrue(
+          Math.abs(ledMiss) < 0.1 * Math.abs(unledMiss),
+          "Lead of " + lead + " rad left a miss of " + ledMiss + " m at vy " + velocityY);
+    }
+  }
+}
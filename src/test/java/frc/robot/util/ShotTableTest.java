@@ -0,0 +1,112 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.util.ShotTable.Interpolation;
+import org.junit.jupiter.api.Test;
+
+class ShotTableTest {
+  private static final double epsilon = 1e-9;
+
+  // Unsorted, with a sharp step in angle between 3 and 4 meters
+  private static final double[] distances = {4.0, 1.0, 3.0, 2.0, 5.0};
+  private static final double[] angles = {0.50, 0.10, 0.12, 0.11, 0.52};
+  private static final double[] powers = {0.8, 0.4, 0.6, 0.5, 0.9};
+
+  private static ShotTable table(Interpolation interpolation) {
+    return ShotTable.of(distances, angles, powers, interpolation);
+  }
+
+  @Test
+  void exactAtPoints() {
+    for (Interpolation interpolation : Interpolation.values()) {
+      ShotTable table = table(interpolation);
+      for (int i = 0; i < distances.length; i++) {
+        assertEquals(angles[i], table.getAngle(distances[i]), epsilon);
+        assertEquals(powers[i], table.getPower(distances[i]), epsilon);
+      }
+    }
+  }
+
+  @Test
+  void clampsOutsideTable() {
+    for (Interpolation interpolation : Interpolation.values()) {
+      ShotTable table = table(interpolation);
+      assertEquals(0.10, table.getAngle(0.0), epsilon);
+      assertEquals(0.4, table.getPower(-1.0), epsilon);
+      assertEquals(0.52, table.getAngle(10.0), epsilon);
+      assertEquals(0.9, table.getPower(5.5), epsilon);
+    }
+  }
+
+  @Test
+  void monotoneCubicDoesNotOvershoot() {
+    ShotTable table = table(Interpolation.MONOTONE_CUBIC);
+    double previous = table.getAngle(1.0);
+    for (double distance = 1.0; distance <= 5.0; distance += 0.01) {
+      double angle = table.getAngle(distance);
+      assertTrue(angle >= previous - epsilon, "Angle decreased at " + distance + " m");
+      assertTrue(angle >= 0.10 - epsilon && angle <= 0.52 + epsilon);
+      previous = angle;
+    }
+
+    // Stays between the neighboring points on each segment
+    for (double distance = 2.0; distance <= 3.0; distance += 0.01) {
+      double angle = table.getAngle(distance);
+      assertTrue(angle >= 0.11 - epsilon && angle <= 0.12 + epsilon);
+    }
+  }
+
+  @Test
+  void monotoneCubicIsFlatAtLocalExtrema() {
+    ShotTable table =
+        ShotTable.of(
+            new double[] {1.0, 2.0, 3.0},
+            new double[] {0.0, 1.0, 0.0},
+            new double[] {0.0, 0.0, 0.0},
+            Interpolation.MONOTONE_CUBIC);
+    for (double distance = 1.0; distance <= 3.0; distance += 0.01) {
+      assertTrue(table.getAngle(distance) <= 1.0 + epsilon);
+    }
+  }
+
+  @Test
+  void linearInterpolatesBetweenPoints() {
+    ShotTable table = table(Interpolation.LINEAR);
+    assertEquals(0.31, table.getAngle(3.5), epsilon);
+    assertEquals(0.45, table.getPower(1.5), epsilon);
+  }
+
+  @Test
+  void reportsDistanceRange() {
+    ShotTable table = table(Interpolation.LINEAR);
+    assertEquals(5, table.size());
+    assertEquals(1.0, table.getMinDistance(), epsilon);
+    assertEquals(5.0, table.getMaxDistance(), epsilon);
+  }
+
+  @Test
+  void emptyTableThrows() {
+    assertThrows(IllegalStateException.class, () -> ShotTable.empty.getAngle(1.0));
+    assertThrows(IllegalStateException.class, () -> ShotTable.empty.getMinDistance());
+  }
+
+  @Test
+  void rejectsInvalidColumns() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            ShotTable.of(
+                new double[] {1.0, 1.0},
+                new double[] {0.0, 0.0},
+                new double[] {0.0, 0.0},
+                Interpolation.LINEAR));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            ShotTable.of(
+                new double[] {1.0}, new double[] {}, new double[] {0.0}, Interpolation.LINEAR));
+  }
+}